@@ -2,8 +2,10 @@ package com.eyecare;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EyeCareApplication {
     public static void main(String[] args) {
         SpringApplication.run(EyeCareApplication.class, args);
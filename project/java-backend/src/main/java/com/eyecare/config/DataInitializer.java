@@ -3,6 +3,7 @@ package com.eyecare.config;
 import com.eyecare.model.Doctor;
 import com.eyecare.model.User;
 import com.eyecare.service.DoctorService;
+import com.eyecare.service.ProfileResolver;
 import com.eyecare.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -19,6 +20,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private DoctorService doctorService;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
     @Override
     public void run(String... args) throws Exception {
         // Create default admin user
@@ -40,7 +44,8 @@ public class DataInitializer implements CommandLineRunner {
             doctor.setYearsExperience(15);
             doctor.setConsultationFee(new BigDecimal("150.00"));
             doctor.setBio("Experienced ophthalmologist specializing in retinal diseases and cataract surgery.");
-            doctorService.saveDoctor(doctor);
+            Doctor savedDoctor = doctorService.saveDoctor(doctor);
+            profileResolver.registerDoctor(savedDoctorUser.getId(), savedDoctor.getId());
         }
     }
 }
\ No newline at end of file
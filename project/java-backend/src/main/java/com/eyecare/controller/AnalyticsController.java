@@ -0,0 +1,83 @@
+package com.eyecare.controller;
+
+import com.eyecare.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AnalyticsController {
+    
+    private static final int MAX_TOP = 50;
+    private static final int MAX_WINDOW_DAYS = 365;
+    
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @GetMapping("/iop-by-doctor")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getIopByDoctor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "21") int elevatedAbove) {
+        if (elevatedAbove < 0) {
+            return badRequest("elevatedAbove must not be negative");
+        }
+        return ResponseEntity.ok(analyticsService.iopByDoctor(startDate, endDate, elevatedAbove));
+    }
+    
+    @GetMapping("/follow-up-compliance")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getFollowUpCompliance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "14") int windowDays) {
+        if (windowDays < 0 || windowDays > MAX_WINDOW_DAYS) {
+            return badRequest("windowDays must be between 0 and " + MAX_WINDOW_DAYS);
+        }
+        return ResponseEntity.ok(analyticsService.followUpCompliance(startDate, endDate, windowDays));
+    }
+    
+    @GetMapping("/diagnoses-per-month")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getDiagnosesPerMonth(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int top) {
+        // Defaults to the last twelve calendar months
+        LocalDate to = endDate != null ? endDate : LocalDate.now();
+        LocalDate from = startDate != null ? startDate : to.withDayOfMonth(1).minusMonths(11);
+        if (from.isAfter(to)) {
+            return badRequest("startDate must not be after endDate");
+        }
+        try {
+            return ResponseEntity.ok(analyticsService.diagnosesPerMonth(from, to, Math.max(1, Math.min(top, MAX_TOP))));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/snapshot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSnapshot() {
+        return ResponseEntity.ok(analyticsService.describe());
+    }
+    
+    private static ResponseEntity<?> badRequest(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.badRequest().body(error);
+    }
+}
\ No newline at end of file
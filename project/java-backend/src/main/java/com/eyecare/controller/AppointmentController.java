@@ -1,50 +1,87 @@
 package com.eyecare.controller;
 
+import com.eyecare.dto.AppointmentCursor;
 import com.eyecare.dto.AppointmentRequest;
+import com.eyecare.dto.AppointmentView;
 import com.eyecare.model.Appointment;
 import com.eyecare.model.Doctor;
 import com.eyecare.model.Patient;
 import com.eyecare.model.User;
+import com.eyecare.security.UserPrincipal;
 import com.eyecare.service.AppointmentService;
+import com.eyecare.service.BookingConflictException;
+import com.eyecare.service.BookingService;
 import com.eyecare.service.DoctorService;
+import com.eyecare.service.ExportFormat;
 import com.eyecare.service.PatientService;
+import com.eyecare.service.ProfileResolver;
+import com.eyecare.service.RecordExporter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/appointments")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class AppointmentController {
     
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     @Autowired
     private AppointmentService appointmentService;
     
+    @Autowired
+    private BookingService bookingService;
+    
     @Autowired
     private PatientService patientService;
     
     @Autowired
     private DoctorService doctorService;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private RecordExporter recordExporter;
+    
+    @Value("${pagination.default-limit:100}")
+    private int defaultLimit;
+    
+    @Value("${pagination.max-limit:500}")
+    private int maxLimit;
+    
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllAppointments(
+    public ResponseEntity<?> getAllAppointments(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
             @RequestParam(required = false) Long doctorId,
             @RequestParam(required = false) Long patientId,
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Authentication authentication) {
         
-        User currentUser = (User) authentication.getPrincipal();
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
         Appointment.Status statusEnum = null;
         
         if (status != null) {
@@ -55,40 +92,123 @@ public class AppointmentController {
             }
         }
         
-        List<Appointment> appointments;
+        if (date != null) {
+            from = date;
+            to = date;
+        }
+        Sort order = parseSort(sort);
+        
+        AppointmentCursor after = null;
+        if (cursor != null) {
+            if (order.isSorted()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "cursor cannot be combined with sort");
+                return ResponseEntity.badRequest().body(error);
+            }
+            try {
+                after = AppointmentCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Invalid cursor");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultLimit, maxLimit));
+        
+        // Fetch one extra row to learn whether another page follows without counting
+        int fetchSize = pageSize + 1;
+        List<AppointmentView> appointments;
         
         // Apply role-based filtering
         if (currentUser.getRole() == User.Role.PATIENT) {
-            Patient patient = patientService.getPatientByUserId(currentUser.getId()).orElse(null);
-            if (patient != null) {
-                appointments = appointmentService.getAppointmentsByFilters(date, doctorId, patient.getId(), statusEnum);
+            Long ownPatientId = profileResolver.getPatientId(currentUser.getId());
+            if (ownPatientId != null) {
+                appointments = appointmentService.getAppointmentsByFilters(from, to, doctorId, ownPatientId, statusEnum, order, after, fetchSize);
             } else {
                 appointments = List.of();
             }
         } else if (currentUser.getRole() == User.Role.DOCTOR) {
-            Doctor doctor = doctorService.getDoctorByUserId(currentUser.getId()).orElse(null);
-            if (doctor != null) {
-                appointments = appointmentService.getAppointmentsByFilters(date, doctor.getId(), patientId, statusEnum);
+            Long ownDoctorId = profileResolver.getDoctorId(currentUser.getId());
+            if (ownDoctorId != null) {
+                appointments = appointmentService.getAppointmentsByFilters(from, to, ownDoctorId, patientId, statusEnum, order, after, fetchSize);
             } else {
                 appointments = List.of();
             }
         } else {
-            appointments = appointmentService.getAppointmentsByFilters(date, doctorId, patientId, statusEnum);
+            appointments = appointmentService.getAppointmentsByFilters(from, to, doctorId, patientId, statusEnum, order, after, fetchSize);
         }
         
-        List<Map<String, Object>> response = appointments.stream().map(this::convertToResponse).collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        HttpHeaders headers = new HttpHeaders();
+        if (appointments.size() > pageSize) {
+            appointments = appointments.subList(0, pageSize);
+            if (order.isUnsorted()) {
+                headers.set(NEXT_CURSOR_HEADER, AppointmentCursor.after(appointments.get(pageSize - 1)).encode());
+            }
+        }
+        
+        if (date != null) {
+            // Single-day views are polled by the front desk; let unchanged polls answer 304
+            String etag = "\"" + Integer.toHexString(appointments.hashCode()) + "-" + appointments.size() + "\"";
+            headers.setETag(etag);
+            if (etag.equals(ifNoneMatch)) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
+        return ResponseEntity.ok().headers(headers).body(appointments);
     }
     
-    @PostMapping
-    public ResponseEntity<?> createAppointment(@Valid @RequestBody AppointmentRequest request) {
-        // Check for conflicts
-        if (appointmentService.hasConflictingAppointment(request.getDoctorId(), request.getAppointmentDate(), request.getAppointmentTime())) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Time slot already booked");
-            return ResponseEntity.badRequest().body(error);
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+        
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
         }
         
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        Appointment.Status statusEnum = null;
+        
+        if (status != null) {
+            try {
+                statusEnum = Appointment.Status.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Invalid status, ignore
+            }
+        }
+        
+        // Apply the same role-based filtering as the list endpoint
+        Appointment.Status statusFilter = statusEnum;
+        Supplier<Stream<AppointmentView>> query;
+        if (currentUser.getRole() == User.Role.PATIENT) {
+            Long ownPatientId = profileResolver.getPatientId(currentUser.getId());
+            query = ownPatientId != null
+                    ? () -> appointmentService.streamAppointments(from, to, doctorId, ownPatientId, statusFilter)
+                    : Stream::empty;
+        } else if (currentUser.getRole() == User.Role.DOCTOR) {
+            Long ownDoctorId = profileResolver.getDoctorId(currentUser.getId());
+            query = ownDoctorId != null
+                    ? () -> appointmentService.streamAppointments(from, to, ownDoctorId, patientId, statusFilter)
+                    : Stream::empty;
+        } else {
+            query = () -> appointmentService.streamAppointments(from, to, doctorId, patientId, statusFilter);
+        }
+        
+        StreamingResponseBody body = out -> recordExporter.export(query, AppointmentView.class, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
+    @PostMapping
+    public ResponseEntity<?> createAppointment(@Valid @RequestBody AppointmentRequest request) {
         Patient patient = patientService.getPatientById(request.getPatientId()).orElse(null);
         Doctor doctor = doctorService.getDoctorById(request.getDoctorId()).orElse(null);
         
@@ -103,7 +223,14 @@ public class AppointmentController {
         appointment.setReason(request.getReason());
         appointment.setNotes(request.getNotes());
         
-        Appointment savedAppointment = appointmentService.saveAppointment(appointment);
+        Appointment savedAppointment;
+        try {
+            savedAppointment = bookingService.book(appointment);
+        } catch (BookingConflictException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Time slot already booked");
+            return ResponseEntity.badRequest().body(error);
+        }
         
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Appointment created successfully");
@@ -122,6 +249,14 @@ public class AppointmentController {
             return ResponseEntity.notFound().build();
         }
         
+        // Booking does arithmetic on the duration, so a null or non-positive one is refused up front
+        if (updates.containsKey("duration")
+                && !(updates.get("duration") instanceof Integer duration && duration > 0)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Duration must be a positive number of minutes");
+            return ResponseEntity.badRequest().body(error);
+        }
+        
         // Update fields
         if (updates.containsKey("appointmentDate")) {
             appointment.setAppointmentDate(LocalDate.parse((String) updates.get("appointmentDate")));
@@ -146,7 +281,19 @@ public class AppointmentController {
             appointment.setNotes((String) updates.get("notes"));
         }
         
-        appointmentService.saveAppointment(appointment);
+        boolean slotChanged = updates.containsKey("appointmentDate") || updates.containsKey("appointmentTime")
+                || updates.containsKey("duration") || updates.containsKey("status");
+        if (slotChanged) {
+            try {
+                bookingService.reschedule(appointment);
+            } catch (BookingConflictException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Time slot already booked");
+                return ResponseEntity.badRequest().body(error);
+            }
+        } else {
+            appointmentService.saveAppointment(appointment);
+        }
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "Appointment updated successfully");
@@ -169,21 +316,20 @@ public class AppointmentController {
         return ResponseEntity.ok(response);
     }
     
-    private Map<String, Object> convertToResponse(Appointment appointment) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", appointment.getId());
-        response.put("patient_first_name", appointment.getPatient().getUser().getFirstName());
-        response.put("patient_last_name", appointment.getPatient().getUser().getLastName());
-        response.put("doctor_first_name", appointment.getDoctor().getUser().getFirstName());
-        response.put("doctor_last_name", appointment.getDoctor().getUser().getLastName());
-        response.put("appointment_date", appointment.getAppointmentDate().toString());
-        response.put("appointment_time", appointment.getAppointmentTime().toString());
-        response.put("duration", appointment.getDuration());
-        response.put("status", appointment.getStatus().name().toLowerCase());
-        response.put("reason", appointment.getReason());
-        response.put("notes", appointment.getNotes());
-        response.put("created_at", appointment.getCreatedAt().toString());
-        response.put("updated_at", appointment.getUpdatedAt().toString());
-        return response;
+    /** Parses "field[,asc|desc]"; unknown fields are ignored like an unknown status. */
+    private Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.split(",");
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        switch (parts[0].trim()) {
+            case "appointment_date": return Sort.by(direction, "appointmentDate", "appointmentTime");
+            case "appointment_time": return Sort.by(direction, "appointmentTime");
+            case "created_at": return Sort.by(direction, "createdAt");
+            case "status": return Sort.by(direction, "status");
+            default: return Sort.unsorted();
+        }
     }
 }
\ No newline at end of file
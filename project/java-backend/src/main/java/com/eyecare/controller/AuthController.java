@@ -6,12 +6,20 @@ import com.eyecare.dto.RegisterRequest;
 import com.eyecare.model.Doctor;
 import com.eyecare.model.Patient;
 import com.eyecare.model.User;
+import com.eyecare.security.HashingCapacityException;
 import com.eyecare.security.JwtUtils;
+import com.eyecare.security.LoginThrottle;
+import com.eyecare.security.PasswordHashingExecutor;
 import com.eyecare.service.DoctorService;
 import com.eyecare.service.PatientService;
+import com.eyecare.service.ProfileResolver;
+import com.eyecare.service.RegistrationConflictException;
 import com.eyecare.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -39,20 +47,40 @@ public class AuthController {
     @Autowired
     DoctorService doctorService;
     
+    @Autowired
+    ProfileResolver profileResolver;
+    
+    @Autowired
+    PasswordHashingExecutor hashingExecutor;
+    
+    @Autowired
+    LoginThrottle loginThrottle;
+    
     @Autowired
     JwtUtils jwtUtils;
     
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // Reject over-limit attempts before any user lookup or password hashing
+        long waitMs = loginThrottle.tryAcquire(loginRequest.getUsername(), request.getRemoteAddr());
+        if (waitMs > 0) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Too many login attempts, please retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((waitMs + 999) / 1000))
+                    .body(error);
+        }
+        
         try {
-            Authentication authentication = authenticationManager.authenticate(
+            Authentication authentication = hashingExecutor.execute(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
-            );
+            ));
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
             String jwt = jwtUtils.generateToken((User) authentication.getPrincipal());
             
             User user = (User) authentication.getPrincipal();
+            loginThrottle.reset(loginRequest.getUsername());
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Login successful");
@@ -69,6 +97,8 @@ public class AuthController {
             response.put("user", userInfo);
             
             return ResponseEntity.ok(response);
+        } catch (HashingCapacityException e) {
+            return handleHashingCapacity(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid credentials");
@@ -78,16 +108,9 @@ public class AuthController {
     
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest signUpRequest) {
-        if (userService.existsByUsername(signUpRequest.getUsername())) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Username is already taken!");
-            return ResponseEntity.badRequest().body(error);
-        }
-        
-        if (userService.existsByEmail(signUpRequest.getEmail())) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Email is already in use!");
-            return ResponseEntity.badRequest().body(error);
+        String conflict = userService.findRegistrationConflict(signUpRequest.getUsername(), signUpRequest.getEmail());
+        if (conflict != null) {
+            return registrationConflict(conflict);
         }
         
         // Create new user
@@ -102,15 +125,20 @@ public class AuthController {
         user.setDateOfBirth(signUpRequest.getDateOfBirth());
         user.setAddress(signUpRequest.getAddress());
         
-        User savedUser = userService.createUser(user);
+        User savedUser;
+        try {
+            savedUser = userService.createUser(user);
+        } catch (RegistrationConflictException e) {
+            return registrationConflict(e.getField());
+        }
         
         // Create role-specific record
         if (savedUser.getRole() == User.Role.PATIENT) {
-            Patient patient = new Patient(savedUser);
-            patientService.savePatient(patient);
+            Patient patient = patientService.savePatient(new Patient(savedUser));
+            profileResolver.registerPatient(savedUser.getId(), patient.getId());
         } else if (savedUser.getRole() == User.Role.DOCTOR) {
-            Doctor doctor = new Doctor(savedUser);
-            doctorService.saveDoctor(doctor);
+            Doctor doctor = doctorService.saveDoctor(new Doctor(savedUser));
+            profileResolver.registerDoctor(savedUser.getId(), doctor.getId());
         }
         
         Map<String, Object> response = new HashMap<>();
@@ -119,4 +147,19 @@ public class AuthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    private ResponseEntity<?> registrationConflict(String field) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "email".equals(field) ? "Email is already in use!" : "Username is already taken!");
+        return ResponseEntity.badRequest().body(error);
+    }
+    
+    @ExceptionHandler(HashingCapacityException.class)
+    public ResponseEntity<?> handleHashingCapacity(HashingCapacityException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Server is busy, please retry shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
 }
\ No newline at end of file
@@ -1,15 +1,25 @@
 package com.eyecare.controller;
 
+import com.eyecare.dto.DoctorView;
 import com.eyecare.model.Doctor;
 import com.eyecare.model.User;
+import com.eyecare.security.UserPrincipal;
+import com.eyecare.service.AvailabilityService;
 import com.eyecare.service.DoctorService;
+import com.eyecare.service.ProfileResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,23 +33,23 @@ public class DoctorController {
     @Autowired
     private DoctorService doctorService;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private AvailabilityService availabilityService;
+    
+    @Value("${slots.max-range-days:90}")
+    private int maxRangeDays;
+    
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllDoctors(
+    public ResponseEntity<List<DoctorView>> getAllDoctors(
             @RequestParam(required = false) String specialization) {
         
-        List<Doctor> doctors;
-        if (specialization != null && !specialization.trim().isEmpty()) {
-            doctors = doctorService.getDoctorsBySpecialization(specialization);
-        } else {
-            doctors = doctorService.getAllDoctors();
+        if (specialization != null && specialization.trim().isEmpty()) {
+            specialization = null;
         }
-        
-        List<Map<String, Object>> response = doctors.stream()
-                .filter(doctor -> doctor.getUser().getIsActive())
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(doctorService.getActiveDoctorViews(specialization));
     }
     
     @GetMapping("/{id}")
@@ -52,7 +62,62 @@ public class DoctorController {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(convertToResponse(doctor));
+        return ResponseEntity.ok(DoctorView.of(doctor));
+    }
+    
+    @GetMapping("/{id}/slots")
+    public ResponseEntity<?> getFreeSlots(@PathVariable Long id,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(defaultValue = "30") int duration) {
+        Doctor doctor = doctorService.getDoctorById(id).orElse(null);
+        
+        if (doctor == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        LocalDate[] range = parseRange(from, to);
+        String invalid = validateSlotQuery(range, duration);
+        if (invalid != null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", invalid);
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctor_id", doctor.getId());
+        response.put("duration", duration);
+        response.put("slots", convertSlots(availabilityService.findFreeSlots(doctor, range[0], range[1], duration)));
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/slots")
+    public ResponseEntity<?> getFreeSlotsBySpecialization(@RequestParam String specialization,
+                                                          @RequestParam(required = false) String from,
+                                                          @RequestParam(required = false) String to,
+                                                          @RequestParam(defaultValue = "30") int duration) {
+        LocalDate[] range = parseRange(from, to);
+        String invalid = validateSlotQuery(range, duration);
+        if (invalid != null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", invalid);
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        List<Doctor> doctors = doctorService.getDoctorsBySpecialization(specialization).stream()
+                .filter(doctor -> doctor.getUser().getIsActive())
+                .collect(Collectors.toList());
+        
+        List<Map<String, Object>> response = new ArrayList<>();
+        availabilityService.findFreeSlots(doctors, range[0], range[1], duration).forEach((doctor, slots) -> {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("doctor_id", doctor.getId());
+            entry.put("first_name", doctor.getUser().getFirstName());
+            entry.put("last_name", doctor.getUser().getLastName());
+            entry.put("slots", convertSlots(slots));
+            response.add(entry);
+        });
+        return ResponseEntity.ok(response);
     }
     
     @PutMapping("/{id}")
@@ -66,10 +131,10 @@ public class DoctorController {
             return ResponseEntity.notFound().build();
         }
         
-        User currentUser = (User) authentication.getPrincipal();
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
         
         // Check access permissions
-        if (currentUser.getRole() == User.Role.DOCTOR && !doctor.getUser().getId().equals(currentUser.getId())) {
+        if (currentUser.getRole() == User.Role.DOCTOR && !doctor.getId().equals(profileResolver.getDoctorId(currentUser.getId()))) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Access denied");
             return ResponseEntity.status(403).body(error);
@@ -108,20 +173,40 @@ public class DoctorController {
         return ResponseEntity.ok(response);
     }
     
-    private Map<String, Object> convertToResponse(Doctor doctor) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", doctor.getId());
-        response.put("first_name", doctor.getUser().getFirstName());
-        response.put("last_name", doctor.getUser().getLastName());
-        response.put("email", doctor.getUser().getEmail());
-        response.put("phone", doctor.getUser().getPhone());
-        response.put("specialization", doctor.getSpecialization());
-        response.put("license_number", doctor.getLicenseNumber());
-        response.put("years_experience", doctor.getYearsExperience());
-        response.put("consultation_fee", doctor.getConsultationFee());
-        response.put("bio", doctor.getBio());
-        response.put("available_days", doctor.getAvailableDays());
-        response.put("available_hours", doctor.getAvailableHours());
-        return response;
+    private LocalDate[] parseRange(String from, String to) {
+        try {
+            LocalDate start = from != null ? LocalDate.parse(from) : LocalDate.now();
+            LocalDate end = to != null ? LocalDate.parse(to) : start.plusDays(6);
+            return new LocalDate[] { start, end };
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    private String validateSlotQuery(LocalDate[] range, int duration) {
+        if (range == null) {
+            return "Dates must be in YYYY-MM-DD format";
+        }
+        if (range[1].isBefore(range[0])) {
+            return "'to' must not be before 'from'";
+        }
+        if (ChronoUnit.DAYS.between(range[0], range[1]) >= maxRangeDays) {
+            return "Date range must not exceed " + maxRangeDays + " days";
+        }
+        if (duration < 5 || duration > 480) {
+            return "Duration must be between 5 and 480 minutes";
+        }
+        return null;
+    }
+    
+    private List<Map<String, Object>> convertSlots(Map<LocalDate, List<LocalTime>> slots) {
+        List<Map<String, Object>> days = new ArrayList<>(slots.size());
+        slots.forEach((date, times) -> {
+            Map<String, Object> day = new HashMap<>();
+            day.put("date", date.toString());
+            day.put("times", times.stream().map(LocalTime::toString).collect(Collectors.toList()));
+            days.add(day);
+        });
+        return days;
     }
 }
\ No newline at end of file
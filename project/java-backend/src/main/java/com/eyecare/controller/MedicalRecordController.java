@@ -1,30 +1,44 @@
 package com.eyecare.controller;
 
+import com.eyecare.dto.MedicalRecordCursor;
+import com.eyecare.dto.MedicalRecordListView;
+import com.eyecare.dto.MedicalRecordView;
 import com.eyecare.model.Doctor;
 import com.eyecare.model.MedicalRecord;
 import com.eyecare.model.Patient;
 import com.eyecare.model.User;
+import com.eyecare.security.UserPrincipal;
 import com.eyecare.service.DoctorService;
+import com.eyecare.service.ExportFormat;
 import com.eyecare.service.MedicalRecordService;
 import com.eyecare.service.PatientService;
+import com.eyecare.service.ProfileResolver;
+import com.eyecare.service.RecordExporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/medical-records")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class MedicalRecordController {
     
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     @Autowired
     private MedicalRecordService medicalRecordService;
     
@@ -34,41 +48,180 @@ public class MedicalRecordController {
     @Autowired
     private DoctorService doctorService;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private RecordExporter recordExporter;
+    
+    @Value("${pagination.default-limit:100}")
+    private int defaultLimit;
+    
+    @Value("${pagination.max-limit:500}")
+    private int maxLimit;
+    
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllMedicalRecords(
+    public ResponseEntity<?> getAllMedicalRecords(
             @RequestParam(required = false) Long patientId,
             @RequestParam(required = false) Long doctorId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer iopAbove,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         
-        User currentUser = (User) authentication.getPrincipal();
-        List<MedicalRecord> records;
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        Sort order = parseSort(sort);
+        
+        MedicalRecordCursor after = null;
+        if (cursor != null) {
+            if (order.isSorted()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "cursor cannot be combined with sort");
+                return ResponseEntity.badRequest().body(error);
+            }
+            try {
+                after = MedicalRecordCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Invalid cursor");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultLimit, maxLimit));
+        
+        // Fetch one extra row to learn whether another page follows without counting
+        int fetchSize = pageSize + 1;
+        List<MedicalRecordListView> records;
         
         // Apply role-based filtering
         if (currentUser.getRole() == User.Role.PATIENT) {
-            Patient patient = patientService.getPatientByUserId(currentUser.getId()).orElse(null);
-            if (patient != null) {
-                records = medicalRecordService.getMedicalRecordsByFilters(patient.getId(), doctorId, startDate, endDate);
+            Long ownPatientId = profileResolver.getPatientId(currentUser.getId());
+            if (ownPatientId != null) {
+                records = medicalRecordService.getMedicalRecordsByFilters(ownPatientId, doctorId, startDate, endDate, iopAbove, order, after, fetchSize);
             } else {
                 records = List.of();
             }
         } else if (currentUser.getRole() == User.Role.DOCTOR) {
-            Doctor doctor = doctorService.getDoctorByUserId(currentUser.getId()).orElse(null);
-            if (doctor != null) {
-                records = medicalRecordService.getMedicalRecordsByFilters(patientId, doctor.getId(), startDate, endDate);
+            Long ownDoctorId = profileResolver.getDoctorId(currentUser.getId());
+            if (ownDoctorId != null) {
+                records = medicalRecordService.getMedicalRecordsByFilters(patientId, ownDoctorId, startDate, endDate, iopAbove, order, after, fetchSize);
             } else {
                 records = List.of();
             }
         } else {
-            records = medicalRecordService.getMedicalRecordsByFilters(patientId, doctorId, startDate, endDate);
+            records = medicalRecordService.getMedicalRecordsByFilters(patientId, doctorId, startDate, endDate, iopAbove, order, after, fetchSize);
         }
         
-        List<Map<String, Object>> response = records.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            if (order.isUnsorted()) {
+                return ResponseEntity.ok()
+                        .header(NEXT_CURSOR_HEADER, MedicalRecordCursor.after(records.get(pageSize - 1)).encode())
+                        .body(records);
+            }
+        }
+        return ResponseEntity.ok(records);
+    }
+    
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMedicalRecords(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
         
-        return ResponseEntity.ok(response);
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        
+        // Apply the same role-based filtering as the list endpoint
+        Supplier<Stream<MedicalRecordView>> query;
+        if (currentUser.getRole() == User.Role.PATIENT) {
+            Long ownPatientId = profileResolver.getPatientId(currentUser.getId());
+            query = ownPatientId != null
+                    ? () -> medicalRecordService.streamMedicalRecords(ownPatientId, doctorId, startDate, endDate)
+                    : Stream::empty;
+        } else if (currentUser.getRole() == User.Role.DOCTOR) {
+            Long ownDoctorId = profileResolver.getDoctorId(currentUser.getId());
+            query = ownDoctorId != null
+                    ? () -> medicalRecordService.streamMedicalRecords(patientId, ownDoctorId, startDate, endDate)
+                    : Stream::empty;
+        } else {
+            query = () -> medicalRecordService.streamMedicalRecords(patientId, doctorId, startDate, endDate);
+        }
+        
+        StreamingResponseBody body = out -> recordExporter.export(query, MedicalRecordView.class, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"medical-records." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMedicalRecords(
+            @RequestParam String q,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        
+        // Scope hits the same way as the list endpoint, inside the index so the limit still fills
+        List<MedicalRecordListView> records;
+        if (currentUser.getRole() == User.Role.PATIENT) {
+            Long ownPatientId = profileResolver.getPatientId(currentUser.getId());
+            records = ownPatientId != null
+                    ? medicalRecordService.searchMedicalRecords(q, ownPatientId, doctorId, startDate, endDate, pageSize)
+                    : List.of();
+        } else if (currentUser.getRole() == User.Role.DOCTOR) {
+            Long ownDoctorId = profileResolver.getDoctorId(currentUser.getId());
+            records = ownDoctorId != null
+                    ? medicalRecordService.searchMedicalRecords(q, patientId, ownDoctorId, startDate, endDate, pageSize)
+                    : List.of();
+        } else {
+            records = medicalRecordService.searchMedicalRecords(q, patientId, doctorId, startDate, endDate, pageSize);
+        }
+        return ResponseEntity.ok(records);
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getMedicalRecordById(@PathVariable Long id, Authentication authentication) {
+        MedicalRecord record = medicalRecordService.getMedicalRecordDetail(id).orElse(null);
+        
+        if (record == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        
+        // Same visibility as the list endpoint
+        boolean allowed;
+        if (currentUser.getRole() == User.Role.PATIENT) {
+            allowed = record.getPatient().getId().equals(profileResolver.getPatientId(currentUser.getId()));
+        } else if (currentUser.getRole() == User.Role.DOCTOR) {
+            allowed = record.getDoctor().getId().equals(profileResolver.getDoctorId(currentUser.getId()));
+        } else {
+            allowed = true;
+        }
+        if (!allowed) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Access denied");
+            return ResponseEntity.status(403).body(error);
+        }
+        
+        return ResponseEntity.ok(MedicalRecordView.of(record));
     }
     
     @PostMapping
@@ -183,25 +336,19 @@ public class MedicalRecordController {
         return ResponseEntity.ok(response);
     }
     
-    private Map<String, Object> convertToResponse(MedicalRecord record) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", record.getId());
-        response.put("patient_first_name", record.getPatient().getUser().getFirstName());
-        response.put("patient_last_name", record.getPatient().getUser().getLastName());
-        response.put("doctor_first_name", record.getDoctor().getUser().getFirstName());
-        response.put("doctor_last_name", record.getDoctor().getUser().getLastName());
-        response.put("visit_date", record.getVisitDate().toString());
-        response.put("chief_complaint", record.getChiefComplaint());
-        response.put("diagnosis", record.getDiagnosis());
-        response.put("treatment_plan", record.getTreatmentPlan());
-        response.put("prescription", record.getPrescription());
-        response.put("follow_up_date", record.getFollowUpDate());
-        response.put("visual_acuity_right", record.getVisualAcuityRight());
-        response.put("visual_acuity_left", record.getVisualAcuityLeft());
-        response.put("eye_pressure_right", record.getEyePressureRight());
-        response.put("eye_pressure_left", record.getEyePressureLeft());
-        response.put("notes", record.getNotes());
-        response.put("created_at", record.getCreatedAt().toString());
-        return response;
+    /** Parses "field[,asc|desc]"; unknown fields are ignored. */
+    private Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.split(",");
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        switch (parts[0].trim()) {
+            case "visit_date": return Sort.by(direction, "visitDate");
+            case "follow_up_date": return Sort.by(direction, "followUpDate");
+            case "created_at": return Sort.by(direction, "createdAt");
+            default: return Sort.unsorted();
+        }
     }
 }
\ No newline at end of file
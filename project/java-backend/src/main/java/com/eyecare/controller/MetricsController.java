@@ -0,0 +1,200 @@
+package com.eyecare.controller;
+
+import com.eyecare.security.LoginThrottle;
+import com.eyecare.security.PasswordHashingExecutor;
+import com.eyecare.security.VerifiedTokenCache;
+import com.eyecare.service.AnalyticsService;
+import com.eyecare.service.AppointmentIntervalIndex;
+import com.eyecare.service.BookingService;
+import com.eyecare.service.ClinicalNoteIndex;
+import com.eyecare.service.DailyScheduleCache;
+import com.eyecare.service.PatientSearchIndex;
+import com.eyecare.service.ProfileResolver;
+import com.eyecare.service.TypeaheadService;
+import com.eyecare.service.UserIdentityFilter;
+import com.eyecare.service.UserService;
+import com.eyecare.service.VitalsBackfill;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class MetricsController {
+    
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+    
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+    
+    @Autowired
+    private LoginThrottle loginThrottle;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserIdentityFilter identityFilter;
+    
+    @Autowired
+    private AppointmentIntervalIndex intervalIndex;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private DailyScheduleCache scheduleCache;
+    
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+    
+    @Autowired
+    private TypeaheadService typeaheadService;
+    
+    @Autowired
+    private ClinicalNoteIndex clinicalNoteIndex;
+    
+    @Autowired
+    private VitalsBackfill vitalsBackfill;
+    
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token_cache", tokenCacheMetrics());
+        response.put("profile_cache", profileCacheMetrics());
+        response.put("password_hashing", passwordHashingMetrics());
+        response.put("login_throttle", loginThrottleMetrics());
+        response.put("registration_filter", registrationFilterMetrics());
+        response.put("appointment_index", appointmentIndexMetrics());
+        response.put("booking", bookingMetrics());
+        response.put("schedule_cache", scheduleCacheMetrics());
+        response.put("patient_search", patientSearchMetrics());
+        response.put("typeahead", typeaheadMetrics());
+        response.put("medical_record_search", medicalRecordSearchMetrics());
+        response.put("vitals_backfill", vitalsBackfillMetrics());
+        response.put("analytics", analyticsService.describe());
+        return ResponseEntity.ok(response);
+    }
+    
+    private Map<String, Object> tokenCacheMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", tokenCache.size());
+        metrics.put("hits", tokenCache.getHits());
+        metrics.put("misses", tokenCache.getMisses());
+        metrics.put("evictions", tokenCache.getEvictions());
+        return metrics;
+    }
+    
+    private Map<String, Object> profileCacheMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", profileResolver.size());
+        metrics.put("hits", profileResolver.getHits());
+        metrics.put("misses", profileResolver.getMisses());
+        return metrics;
+    }
+    
+    private Map<String, Object> passwordHashingMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("active", hashingExecutor.getActiveCount());
+        metrics.put("queued", hashingExecutor.getQueueSize());
+        metrics.put("rejected", hashingExecutor.getRejected());
+        return metrics;
+    }
+    
+    private Map<String, Object> loginThrottleMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("buckets", loginThrottle.size());
+        metrics.put("allowed", loginThrottle.getAllowed());
+        metrics.put("rejected_username", loginThrottle.getRejectedByUsername());
+        metrics.put("rejected_ip", loginThrottle.getRejectedByIp());
+        return metrics;
+    }
+    
+    private Map<String, Object> registrationFilterMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("bytes", identityFilter.sizeInBytes());
+        metrics.put("checks_skipped", userService.getConflictChecksSkipped());
+        metrics.put("checks_queried", userService.getConflictChecksQueried());
+        return metrics;
+    }
+    
+    private Map<String, Object> appointmentIndexMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("days", intervalIndex.size());
+        metrics.put("hits", intervalIndex.getHits());
+        metrics.put("loads", intervalIndex.getLoads());
+        return metrics;
+    }
+    
+    private Map<String, Object> bookingMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("conflicts", bookingService.getConflicts());
+        metrics.put("contended", bookingService.getContended());
+        metrics.put("stale_hints", bookingService.getStaleHints());
+        return metrics;
+    }
+    
+    private Map<String, Object> scheduleCacheMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hits = scheduleCache.getHits();
+        long lookups = hits + scheduleCache.getMisses();
+        metrics.put("size", scheduleCache.size());
+        metrics.put("hits", hits);
+        metrics.put("misses", scheduleCache.getMisses());
+        metrics.put("hit_ratio", lookups > 0 ? (double) hits / lookups : 0.0);
+        metrics.put("evictions", scheduleCache.getEvictions());
+        metrics.put("invalidations", scheduleCache.getInvalidations());
+        return metrics;
+    }
+    
+    private Map<String, Object> patientSearchMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("patients", patientSearchIndex.size());
+        metrics.put("trigrams", patientSearchIndex.trigrams());
+        metrics.put("queries", patientSearchIndex.getQueries());
+        metrics.put("fallbacks", patientSearchIndex.getFallbacks());
+        return metrics;
+    }
+    
+    private Map<String, Object> typeaheadMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("patients", typeaheadService.getPatientCount());
+        metrics.put("doctors", typeaheadService.getDoctorCount());
+        metrics.put("lookups", typeaheadService.getLookups());
+        return metrics;
+    }
+    
+    private Map<String, Object> medicalRecordSearchMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("records", clinicalNoteIndex.size());
+        metrics.put("segments", clinicalNoteIndex.segmentCount());
+        metrics.put("buffered", clinicalNoteIndex.bufferedCount());
+        metrics.put("persistent", clinicalNoteIndex.isPersistent());
+        metrics.put("rebuilt_on_start", clinicalNoteIndex.wasRebuilt());
+        metrics.put("caught_up_on_start", clinicalNoteIndex.getCaughtUp());
+        metrics.put("persist_failures", clinicalNoteIndex.getPersistFailures());
+        metrics.put("queries", clinicalNoteIndex.getQueries());
+        return metrics;
+    }
+    
+    private Map<String, Object> vitalsBackfillMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("running", vitalsBackfill.isRunning());
+        metrics.put("updated", vitalsBackfill.getUpdated());
+        return metrics;
+    }
+}
\ No newline at end of file
@@ -1,50 +1,97 @@
 package com.eyecare.controller;
 
+import com.eyecare.dto.PatientListView;
+import com.eyecare.dto.PatientSummary;
+import com.eyecare.dto.PatientView;
 import com.eyecare.model.Patient;
 import com.eyecare.model.User;
+import com.eyecare.security.UserPrincipal;
+import com.eyecare.service.MedicalRecordService;
+import com.eyecare.service.PatientImportService;
 import com.eyecare.service.PatientService;
+import com.eyecare.service.PatientSummaryService;
+import com.eyecare.service.ProfileResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/patients")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class PatientController {
     
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    
     @Autowired
     private PatientService patientService;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private PatientImportService patientImportService;
+    
+    @Autowired
+    private PatientSummaryService patientSummaryService;
+    
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+    
+    @Value("${pagination.max-limit:500}")
+    private int maxLimit;
+    
     @GetMapping
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getAllPatients(
+    public ResponseEntity<List<PatientListView>> getAllPatients(
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "50") int limit,
-            @RequestParam(defaultValue = "0") int offset) {
-        
-        List<Patient> patients;
-        if (search != null && !search.trim().isEmpty()) {
-            patients = patientService.searchPatients(search);
-        } else {
-            patients = patientService.getAllPatients();
-        }
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean count) {
         
-        // Apply pagination
-        int start = Math.min(offset, patients.size());
-        int end = Math.min(start + limit, patients.size());
-        List<Patient> paginatedPatients = patients.subList(start, end);
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        List<PatientListView> patients = patientService.searchPatients(search, parseSort(sort), Math.max(0, offset), pageSize);
         
-        List<Map<String, Object>> response = paginatedPatients.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        // The total costs a second query, so only run it when the client asks
+        if (count) {
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(patientService.countPatients(search, parseSort(sort))))
+                    .body(patients);
+        }
+        return ResponseEntity.ok(patients);
+    }
+    
+    @PostMapping(value = "/import", consumes = {"application/json", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importPatients(HttpServletRequest request) throws IOException {
+        PatientImportService.Result result;
+        try {
+            if (request.getContentType().startsWith("text/csv")) {
+                result = patientImportService.importCsv(request.getInputStream());
+            } else {
+                result = patientImportService.importJson(request.getInputStream());
+            }
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
         
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Import finished");
+        response.put("imported", result.getImported());
+        response.put("failed", result.getFailed());
+        response.put("errors", result.getErrors());
         return ResponseEntity.ok(response);
     }
     
@@ -58,16 +105,56 @@ public class PatientController {
             return ResponseEntity.notFound().build();
         }
         
-        User currentUser = (User) authentication.getPrincipal();
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
         
         // Check access permissions
-        if (currentUser.getRole() == User.Role.PATIENT && !patient.getUser().getId().equals(currentUser.getId())) {
+        if (currentUser.getRole() == User.Role.PATIENT && !patient.getId().equals(profileResolver.getPatientId(currentUser.getId()))) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Access denied");
             return ResponseEntity.status(403).body(error);
         }
         
-        return ResponseEntity.ok(convertToResponse(patient));
+        return ResponseEntity.ok(PatientView.of(patient));
+    }
+    
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<?> getPatientSummary(@PathVariable Long id, Authentication authentication) {
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        
+        // Check access permissions
+        if (currentUser.getRole() == User.Role.PATIENT && !id.equals(profileResolver.getPatientId(currentUser.getId()))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Access denied");
+            return ResponseEntity.status(403).body(error);
+        }
+        
+        PatientSummary summary = patientSummaryService.getSummary(id);
+        if (summary == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (summary.patient() == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Patient summary timed out");
+            return ResponseEntity.status(503).body(error);
+        }
+        return ResponseEntity.ok(summary);
+    }
+    
+    @GetMapping("/{id}/vitals/trend")
+    public ResponseEntity<?> getVitalsTrend(@PathVariable Long id, Authentication authentication) {
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        
+        // Check access permissions
+        if (currentUser.getRole() == User.Role.PATIENT && !id.equals(profileResolver.getPatientId(currentUser.getId()))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Access denied");
+            return ResponseEntity.status(403).body(error);
+        }
+        
+        if (patientService.getPatientById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(medicalRecordService.getVitalsTrend(id));
     }
     
     @PutMapping("/{id}")
@@ -80,10 +167,10 @@ public class PatientController {
             return ResponseEntity.notFound().build();
         }
         
-        User currentUser = (User) authentication.getPrincipal();
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
         
         // Check access permissions
-        if (currentUser.getRole() == User.Role.PATIENT && !patient.getUser().getId().equals(currentUser.getId())) {
+        if (currentUser.getRole() == User.Role.PATIENT && !patient.getId().equals(profileResolver.getPatientId(currentUser.getId()))) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Access denied");
             return ResponseEntity.status(403).body(error);
@@ -119,22 +206,19 @@ public class PatientController {
         return ResponseEntity.ok(response);
     }
     
-    private Map<String, Object> convertToResponse(Patient patient) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", patient.getId());
-        response.put("first_name", patient.getUser().getFirstName());
-        response.put("last_name", patient.getUser().getLastName());
-        response.put("email", patient.getUser().getEmail());
-        response.put("phone", patient.getUser().getPhone());
-        response.put("date_of_birth", patient.getUser().getDateOfBirth());
-        response.put("address", patient.getUser().getAddress());
-        response.put("emergency_contact", patient.getEmergencyContact());
-        response.put("emergency_phone", patient.getEmergencyPhone());
-        response.put("insurance_provider", patient.getInsuranceProvider());
-        response.put("insurance_number", patient.getInsuranceNumber());
-        response.put("allergies", patient.getAllergies());
-        response.put("current_medications", patient.getCurrentMedications());
-        response.put("medical_history", patient.getMedicalHistory());
-        return response;
+    private Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.split(",");
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        switch (parts[0].trim()) {
+            case "id": return Sort.by(direction, "id");
+            case "first_name": return Sort.by(direction, "user.firstName");
+            case "last_name": return Sort.by(direction, "user.lastName");
+            case "date_of_birth": return Sort.by(direction, "user.dateOfBirth");
+            default: return Sort.unsorted();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.eyecare.controller;
+
+import com.eyecare.model.User;
+import com.eyecare.security.UserPrincipal;
+import com.eyecare.service.TypeaheadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/search")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class SearchController {
+    
+    private static final int MIN_QUERY_LENGTH = 2;
+    
+    @Autowired
+    private TypeaheadService typeaheadService;
+    
+    @GetMapping("/typeahead")
+    public ResponseEntity<?> typeahead(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "patient") String type,
+            @RequestParam(defaultValue = "10") int k,
+            Authentication authentication) {
+        
+        UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+        int limit = Math.max(1, Math.min(k, typeaheadService.getTopK()));
+        boolean tooShort = q.trim().length() < MIN_QUERY_LENGTH;
+        
+        if (type.equalsIgnoreCase("patient")) {
+            // Same audience as GET /patients
+            if (currentUser.getRole() == User.Role.PATIENT) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Access denied");
+                return ResponseEntity.status(403).body(error);
+            }
+            return ResponseEntity.ok(tooShort ? List.of() : typeaheadService.suggestPatients(q, limit));
+        }
+        if (type.equalsIgnoreCase("doctor")) {
+            return ResponseEntity.ok(tooShort ? List.of() : typeaheadService.suggestDoctors(q, limit));
+        }
+        
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "type must be patient or doctor");
+        return ResponseEntity.badRequest().body(error);
+    }
+}
\ No newline at end of file
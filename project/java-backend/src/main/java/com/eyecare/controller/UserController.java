@@ -0,0 +1,60 @@
+package com.eyecare.controller;
+
+import com.eyecare.model.User;
+import com.eyecare.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/users")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class UserController {
+    
+    @Autowired
+    private UserService userService;
+    
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateUserAccess(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
+        User user = userService.getUserById(id).orElse(null);
+        
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        User.Role role = null;
+        if (updates.containsKey("role")) {
+            Object value = updates.get("role");
+            try {
+                if (!(value instanceof String)) {
+                    throw new IllegalArgumentException();
+                }
+                role = User.Role.valueOf(((String) value).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Invalid role");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        Boolean isActive = null;
+        if (updates.containsKey("isActive")) {
+            if (!(updates.get("isActive") instanceof Boolean)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "isActive must be true or false");
+                return ResponseEntity.badRequest().body(error);
+            }
+            isActive = (Boolean) updates.get("isActive");
+        }
+        
+        userService.updateAccess(user, role, isActive);
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "User updated successfully");
+        return ResponseEntity.ok(response);
+    }
+}
\ No newline at end of file
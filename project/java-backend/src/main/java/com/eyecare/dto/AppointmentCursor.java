@@ -0,0 +1,47 @@
+package com.eyecare.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position of the last appointment on a page in (date, time, id) order, handed to clients
+ * as an opaque URL-safe token.
+ */
+public record AppointmentCursor(LocalDate date, LocalTime time, Long id) implements Comparable<AppointmentCursor> {
+    
+    public static AppointmentCursor after(AppointmentView view) {
+        return new AppointmentCursor(LocalDate.parse(view.appointmentDate()), LocalTime.parse(view.appointmentTime()), view.id());
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static AppointmentCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new AppointmentCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    @Override
+    public int compareTo(AppointmentCursor other) {
+        int result = date.compareTo(other.date);
+        if (result == 0) {
+            result = time.compareTo(other.time);
+        }
+        return result != 0 ? result : id.compareTo(other.id);
+    }
+    
+    public String encode() {
+        String raw = date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.eyecare.dto;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -17,7 +18,10 @@ public class AppointmentRequest {
     @NotNull
     private LocalTime appointmentTime;
     
+    @NotNull
+    @Positive
     private Integer duration = 30;
+    
     private String reason;
     private String notes;
     
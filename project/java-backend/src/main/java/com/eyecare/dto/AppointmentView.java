@@ -0,0 +1,47 @@
+package com.eyecare.dto;
+
+import com.eyecare.model.Appointment;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Read model for appointment responses, selected directly by JPQL constructor expressions.
+ * Dates, times and the status are rendered as strings to keep the existing wire format.
+ */
+public record AppointmentView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("patient_first_name") String patientFirstName,
+        @JsonProperty("patient_last_name") String patientLastName,
+        @JsonProperty("doctor_first_name") String doctorFirstName,
+        @JsonProperty("doctor_last_name") String doctorLastName,
+        @JsonProperty("appointment_date") String appointmentDate,
+        @JsonProperty("appointment_time") String appointmentTime,
+        @JsonProperty("duration") Integer duration,
+        @JsonProperty("status") String status,
+        @JsonProperty("reason") String reason,
+        @JsonProperty("notes") String notes,
+        @JsonProperty("created_at") String createdAt,
+        @JsonProperty("updated_at") String updatedAt) {
+    
+    public AppointmentView(Long id, String patientFirstName, String patientLastName,
+                           String doctorFirstName, String doctorLastName,
+                           LocalDate appointmentDate, LocalTime appointmentTime, Integer duration,
+                           Appointment.Status status, String reason, String notes,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, patientFirstName, patientLastName, doctorFirstName, doctorLastName,
+                appointmentDate.toString(), appointmentTime.toString(), duration,
+                status.name().toLowerCase(), reason, notes, createdAt.toString(), updatedAt.toString());
+    }
+    
+    public static AppointmentView of(Appointment appointment) {
+        return new AppointmentView(appointment.getId(),
+                appointment.getPatient().getUser().getFirstName(), appointment.getPatient().getUser().getLastName(),
+                appointment.getDoctor().getUser().getFirstName(), appointment.getDoctor().getUser().getLastName(),
+                appointment.getAppointmentDate(), appointment.getAppointmentTime(), appointment.getDuration(),
+                appointment.getStatus(), appointment.getReason(), appointment.getNotes(),
+                appointment.getCreatedAt(), appointment.getUpdatedAt());
+    }
+}
\ No newline at end of file
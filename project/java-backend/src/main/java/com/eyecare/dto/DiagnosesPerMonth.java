@@ -0,0 +1,22 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Visit counts of the most frequent diagnoses, one series per diagnosis with a count for each
+ * entry of months, most frequent first.
+ */
+public record DiagnosesPerMonth(
+        @JsonProperty("refreshed_at") LocalDateTime refreshedAt,
+        @JsonProperty("months") String[] months,
+        @JsonProperty("diagnoses") List<Series> diagnoses) {
+    
+    public record Series(
+            @JsonProperty("diagnosis") String diagnosis,
+            @JsonProperty("total") long total,
+            @JsonProperty("counts") int[] counts) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.eyecare.dto;
+
+import com.eyecare.model.Doctor;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model for doctor responses, selected directly by JPQL constructor expressions.
+ */
+public record DoctorView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("first_name") String firstName,
+        @JsonProperty("last_name") String lastName,
+        @JsonProperty("email") String email,
+        @JsonProperty("phone") String phone,
+        @JsonProperty("specialization") String specialization,
+        @JsonProperty("license_number") String licenseNumber,
+        @JsonProperty("years_experience") Integer yearsExperience,
+        @JsonProperty("consultation_fee") BigDecimal consultationFee,
+        @JsonProperty("bio") String bio,
+        @JsonProperty("available_days") String availableDays,
+        @JsonProperty("available_hours") String availableHours) {
+    
+    public static DoctorView of(Doctor doctor) {
+        return new DoctorView(doctor.getId(), doctor.getUser().getFirstName(), doctor.getUser().getLastName(),
+                doctor.getUser().getEmail(), doctor.getUser().getPhone(), doctor.getSpecialization(),
+                doctor.getLicenseNumber(), doctor.getYearsExperience(), doctor.getConsultationFee(),
+                doctor.getBio(), doctor.getAvailableDays(), doctor.getAvailableHours());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Share of requested follow-ups that were kept, per requesting doctor. A follow-up is due once
+ * its window has closed, and kept when the patient had a completed appointment or a recorded
+ * visit within window_days of the requested date.
+ */
+public record FollowUpCompliance(
+        @JsonProperty("refreshed_at") LocalDateTime refreshedAt,
+        @JsonProperty("window_days") int windowDays,
+        @JsonProperty("due") long due,
+        @JsonProperty("kept") long kept,
+        @JsonProperty("rate") Double rate,
+        @JsonProperty("doctors") List<Doctor> doctors) {
+    
+    public record Doctor(
+            @JsonProperty("doctor_id") Long doctorId,
+            @JsonProperty("doctor_name") String doctorName,
+            @JsonProperty("due") long due,
+            @JsonProperty("kept") long kept,
+            @JsonProperty("rate") Double rate) {
+    }
+}
\ No newline at end of file
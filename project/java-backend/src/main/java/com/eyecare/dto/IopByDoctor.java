@@ -0,0 +1,25 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Intraocular pressure per doctor over a visit date range. The average is taken over every
+ * eye measured; a visit is elevated when either eye reads above the threshold.
+ */
+public record IopByDoctor(
+        @JsonProperty("refreshed_at") LocalDateTime refreshedAt,
+        @JsonProperty("elevated_above") int elevatedAbove,
+        @JsonProperty("doctors") List<Doctor> doctors) {
+    
+    public record Doctor(
+            @JsonProperty("doctor_id") Long doctorId,
+            @JsonProperty("doctor_name") String doctorName,
+            @JsonProperty("visits") long visits,
+            @JsonProperty("measured_eyes") long measuredEyes,
+            @JsonProperty("average_iop") Double averageIop,
+            @JsonProperty("elevated_visits") long elevatedVisits) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.eyecare.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last medical record on a page in (visit date desc, id desc) order, handed
+ * to clients as an opaque URL-safe token.
+ */
+public record MedicalRecordCursor(LocalDate visitDate, Long id) {
+    
+    public static MedicalRecordCursor after(MedicalRecordListView view) {
+        return new MedicalRecordCursor(LocalDate.parse(view.visitDate()), view.id());
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static MedicalRecordCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new MedicalRecordCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    public String encode() {
+        String raw = visitDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Compact medical record row for list responses. The free-text columns stay in the database;
+ * only the head of the diagnosis is selected, and the full record is served by
+ * GET /medical-records/{id}.
+ */
+public record MedicalRecordListView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("patient_first_name") String patientFirstName,
+        @JsonProperty("patient_last_name") String patientLastName,
+        @JsonProperty("doctor_first_name") String doctorFirstName,
+        @JsonProperty("doctor_last_name") String doctorLastName,
+        @JsonProperty("visit_date") String visitDate,
+        @JsonProperty("diagnosis_preview") String diagnosisPreview,
+        @JsonProperty("follow_up_date") LocalDate followUpDate,
+        @JsonProperty("visual_acuity_right") String visualAcuityRight,
+        @JsonProperty("visual_acuity_left") String visualAcuityLeft,
+        @JsonProperty("eye_pressure_right") String eyePressureRight,
+        @JsonProperty("eye_pressure_left") String eyePressureLeft,
+        @JsonProperty("created_at") String createdAt) {
+    
+    public static final int PREVIEW_LENGTH = 120;
+    
+    /**
+     * Takes the diagnosis cut to PREVIEW_LENGTH + 1 characters by the query; the extra
+     * character only signals that the text went on.
+     */
+    public MedicalRecordListView(Long id, String patientFirstName, String patientLastName,
+                                 String doctorFirstName, String doctorLastName, LocalDate visitDate,
+                                 String diagnosisHead, LocalDate followUpDate,
+                                 String visualAcuityRight, String visualAcuityLeft,
+                                 String eyePressureRight, String eyePressureLeft, LocalDateTime createdAt) {
+        this(id, patientFirstName, patientLastName, doctorFirstName, doctorLastName, visitDate.toString(),
+                diagnosisHead != null && diagnosisHead.length() > PREVIEW_LENGTH
+                        ? diagnosisHead.substring(0, PREVIEW_LENGTH) + "\u2026" : diagnosisHead,
+                followUpDate, visualAcuityRight, visualAcuityLeft, eyePressureRight, eyePressureLeft,
+                createdAt.toString());
+    }
+}
\ No newline at end of file
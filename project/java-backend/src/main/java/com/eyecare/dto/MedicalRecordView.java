@@ -0,0 +1,50 @@
+package com.eyecare.dto;
+
+import com.eyecare.model.MedicalRecord;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read model for medical record responses, selected directly by JPQL constructor expressions.
+ */
+public record MedicalRecordView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("patient_first_name") String patientFirstName,
+        @JsonProperty("patient_last_name") String patientLastName,
+        @JsonProperty("doctor_first_name") String doctorFirstName,
+        @JsonProperty("doctor_last_name") String doctorLastName,
+        @JsonProperty("visit_date") String visitDate,
+        @JsonProperty("chief_complaint") String chiefComplaint,
+        @JsonProperty("diagnosis") String diagnosis,
+        @JsonProperty("treatment_plan") String treatmentPlan,
+        @JsonProperty("prescription") String prescription,
+        @JsonProperty("follow_up_date") LocalDate followUpDate,
+        @JsonProperty("visual_acuity_right") String visualAcuityRight,
+        @JsonProperty("visual_acuity_left") String visualAcuityLeft,
+        @JsonProperty("eye_pressure_right") String eyePressureRight,
+        @JsonProperty("eye_pressure_left") String eyePressureLeft,
+        @JsonProperty("notes") String notes,
+        @JsonProperty("created_at") String createdAt) {
+    
+    public MedicalRecordView(Long id, String patientFirstName, String patientLastName,
+                             String doctorFirstName, String doctorLastName, LocalDate visitDate,
+                             String chiefComplaint, String diagnosis, String treatmentPlan, String prescription,
+                             LocalDate followUpDate, String visualAcuityRight, String visualAcuityLeft,
+                             String eyePressureRight, String eyePressureLeft, String notes, LocalDateTime createdAt) {
+        this(id, patientFirstName, patientLastName, doctorFirstName, doctorLastName, visitDate.toString(),
+                chiefComplaint, diagnosis, treatmentPlan, prescription, followUpDate,
+                visualAcuityRight, visualAcuityLeft, eyePressureRight, eyePressureLeft, notes, createdAt.toString());
+    }
+    
+    public static MedicalRecordView of(MedicalRecord record) {
+        return new MedicalRecordView(record.getId(),
+                record.getPatient().getUser().getFirstName(), record.getPatient().getUser().getLastName(),
+                record.getDoctor().getUser().getFirstName(), record.getDoctor().getUser().getLastName(),
+                record.getVisitDate(), record.getChiefComplaint(), record.getDiagnosis(),
+                record.getTreatmentPlan(), record.getPrescription(), record.getFollowUpDate(),
+                record.getVisualAcuityRight(), record.getVisualAcuityLeft(),
+                record.getEyePressureRight(), record.getEyePressureLeft(), record.getNotes(), record.getCreatedAt());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+
+/**
+ * Compact patient row for list and search responses. Address and the clinical free text are
+ * left out; GET /patients/{id} returns the full {@link PatientView}.
+ */
+public record PatientListView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("first_name") String firstName,
+        @JsonProperty("last_name") String lastName,
+        @JsonProperty("email") String email,
+        @JsonProperty("phone") String phone,
+        @JsonProperty("date_of_birth") LocalDate dateOfBirth,
+        @JsonProperty("emergency_contact") String emergencyContact,
+        @JsonProperty("emergency_phone") String emergencyPhone,
+        @JsonProperty("insurance_provider") String insuranceProvider,
+        @JsonProperty("insurance_number") String insuranceNumber) {
+}
\ No newline at end of file
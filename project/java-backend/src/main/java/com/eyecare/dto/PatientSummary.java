@@ -0,0 +1,17 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Everything a chart opens with. Sections that missed their deadline are empty and named in
+ * {@code incomplete}.
+ */
+public record PatientSummary(
+        @JsonProperty("patient") PatientView patient,
+        @JsonProperty("upcoming_appointments") List<AppointmentView> upcomingAppointments,
+        @JsonProperty("recent_medical_records") List<MedicalRecordListView> recentMedicalRecords,
+        @JsonProperty("doctors") List<DoctorView> doctors,
+        @JsonProperty("incomplete") List<String> incomplete) {
+}
\ No newline at end of file
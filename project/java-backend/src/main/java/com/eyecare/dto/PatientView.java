@@ -0,0 +1,34 @@
+package com.eyecare.dto;
+
+import com.eyecare.model.Patient;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for patient responses, selected directly by JPQL constructor expressions.
+ */
+public record PatientView(
+        @JsonProperty("id") Long id,
+        @JsonProperty("first_name") String firstName,
+        @JsonProperty("last_name") String lastName,
+        @JsonProperty("email") String email,
+        @JsonProperty("phone") String phone,
+        @JsonProperty("date_of_birth") LocalDate dateOfBirth,
+        @JsonProperty("address") String address,
+        @JsonProperty("emergency_contact") String emergencyContact,
+        @JsonProperty("emergency_phone") String emergencyPhone,
+        @JsonProperty("insurance_provider") String insuranceProvider,
+        @JsonProperty("insurance_number") String insuranceNumber,
+        @JsonProperty("allergies") String allergies,
+        @JsonProperty("current_medications") String currentMedications,
+        @JsonProperty("medical_history") String medicalHistory) {
+    
+    public static PatientView of(Patient patient) {
+        return new PatientView(patient.getId(), patient.getUser().getFirstName(), patient.getUser().getLastName(),
+                patient.getUser().getEmail(), patient.getUser().getPhone(), patient.getUser().getDateOfBirth(),
+                patient.getUser().getAddress(), patient.getEmergencyContact(), patient.getEmergencyPhone(),
+                patient.getInsuranceProvider(), patient.getInsuranceNumber(), patient.getAllergies(),
+                patient.getCurrentMedications(), patient.getMedicalHistory());
+    }
+}
\ No newline at end of file
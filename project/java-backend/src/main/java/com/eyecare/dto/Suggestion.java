@@ -0,0 +1,11 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Typeahead result: just enough to fill an autocomplete row.
+ */
+public record Suggestion(
+        @JsonProperty("id") Long id,
+        @JsonProperty("name") String name) {
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.eyecare.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Intraocular pressure (mmHg) and visual acuity (logMAR) over time for each eye. Every series
+ * is a pair of parallel arrays, visit dates and values, holding only the visits where that
+ * value was recorded.
+ */
+public record VitalsTrend(
+        @JsonProperty("patient_id") Long patientId,
+        @JsonProperty("right") Eye right,
+        @JsonProperty("left") Eye left) {
+    
+    public record Eye(
+            @JsonProperty("iop") IopSeries iop,
+            @JsonProperty("logmar") AcuitySeries logmar) {
+    }
+    
+    public record IopSeries(
+            @JsonProperty("dates") String[] dates,
+            @JsonProperty("values") short[] values) {
+    }
+    
+    public record AcuitySeries(
+            @JsonProperty("dates") String[] dates,
+            @JsonProperty("values") double[] values) {
+    }
+}
\ No newline at end of file
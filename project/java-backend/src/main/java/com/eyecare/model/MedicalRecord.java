@@ -5,21 +5,27 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "medical_records")
+@Table(name = "medical_records", indexes = {
+    @Index(name = "idx_medical_records_patient_visit", columnList = "patient_id, visit_date"),
+    @Index(name = "idx_medical_records_doctor_visit", columnList = "doctor_id, visit_date"),
+    @Index(name = "idx_medical_records_iop_max_visit", columnList = "iop_max, visit_date"),
+    @Index(name = "idx_medical_records_updated_at", columnList = "updated_at")
+})
 public class MedicalRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_records_seq")
+    @SequenceGenerator(name = "medical_records_seq", sequenceName = "medical_records_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "appointment_id")
     private Appointment appointment;
 
@@ -52,12 +58,30 @@ public class MedicalRecord {
     @Column(length = 20)
     private String eyePressureLeft;
 
+    // Typed copies of the four fields above, derived on write; null when the text is not understood
+    private Short iopRight;
+
+    private Short iopLeft;
+
+    // Higher of the two eyes, so threshold queries need a single indexed column
+    private Short iopMax;
+
+    private Double logmarRight;
+
+    private Double logmarLeft;
+
+    // Version of the parser that produced the typed columns; older or null rows are backfilled
+    private Short vitalsVersion;
+
     @Column(columnDefinition = "TEXT")
     private String notes;
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
     // Constructors
     public MedicalRecord() {}
 
@@ -110,9 +134,35 @@ public class MedicalRecord {
     public String getEyePressureLeft() { return eyePressureLeft; }
     public void setEyePressureLeft(String eyePressureLeft) { this.eyePressureLeft = eyePressureLeft; }
 
+    public Short getIopRight() { return iopRight; }
+    public void setIopRight(Short iopRight) { this.iopRight = iopRight; }
+
+    public Short getIopLeft() { return iopLeft; }
+    public void setIopLeft(Short iopLeft) { this.iopLeft = iopLeft; }
+
+    public Short getIopMax() { return iopMax; }
+    public void setIopMax(Short iopMax) { this.iopMax = iopMax; }
+
+    public Double getLogmarRight() { return logmarRight; }
+    public void setLogmarRight(Double logmarRight) { this.logmarRight = logmarRight; }
+
+    public Double getLogmarLeft() { return logmarLeft; }
+    public void setLogmarLeft(Double logmarLeft) { this.logmarLeft = logmarLeft; }
+
+    public Short getVitalsVersion() { return vitalsVersion; }
+    public void setVitalsVersion(Short vitalsVersion) { this.vitalsVersion = vitalsVersion; }
+
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -1,42 +1,51 @@
 package com.eyecare.repository;
 
 import com.eyecare.model.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
     List<Appointment> findByPatientId(Long patientId);
     List<Appointment> findByDoctorId(Long doctorId);
     List<Appointment> findByAppointmentDate(LocalDate date);
     List<Appointment> findByStatus(Appointment.Status status);
     
-    @Query("SELECT a FROM Appointment a WHERE " +
+    @Query("SELECT a.id, a.appointmentTime, a.duration FROM Appointment a WHERE " +
            "a.doctor.id = :doctorId AND " +
            "a.appointmentDate = :date AND " +
-           "a.appointmentTime = :time AND " +
            "a.status != 'CANCELLED'")
-    List<Appointment> findConflictingAppointments(
+    List<Object[]> findActiveIntervals(
         @Param("doctorId") Long doctorId,
-        @Param("date") LocalDate date,
-        @Param("time") LocalTime time
+        @Param("date") LocalDate date
     );
     
-    @Query("SELECT a FROM Appointment a WHERE " +
-           "(:date IS NULL OR a.appointmentDate = :date) AND " +
-           "(:doctorId IS NULL OR a.doctor.id = :doctorId) AND " +
-           "(:patientId IS NULL OR a.patient.id = :patientId) AND " +
-           "(:status IS NULL OR a.status = :status)")
-    List<Appointment> findByFilters(
-        @Param("date") LocalDate date,
+    @Query("SELECT a.appointmentDate, a.appointmentTime, a.duration FROM Appointment a WHERE " +
+           "a.doctor.id = :doctorId AND " +
+           "a.appointmentDate BETWEEN :from AND :to AND " +
+           "a.status != 'CANCELLED' " +
+           "ORDER BY a.appointmentDate")
+    List<Object[]> findActiveIntervalsBetween(
         @Param("doctorId") Long doctorId,
-        @Param("patientId") Long patientId,
-        @Param("status") Appointment.Status status
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
     );
+    
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDate, a.status FROM Appointment a " +
+           "WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findAnalyticsRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDate, a.status FROM Appointment a " +
+           "WHERE a.id > :afterId AND a.id <= :maxId AND a.updatedAt > :since ORDER BY a.id")
+    List<Object[]> findAnalyticsRowsChanged(@Param("afterId") Long afterId, @Param("maxId") Long maxId,
+                                            @Param("since") LocalDateTime since, Pageable pageable);
+    
+    long countByIdLessThanEqual(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.AppointmentCursor;
+import com.eyecare.dto.AppointmentView;
+import com.eyecare.model.Appointment;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Appointment view queries built from only the filters that are present, so the database can
+ * pick the index that matches them. Null arguments are ignored; an unsorted {@link Sort}
+ * orders by date and time.
+ */
+public interface AppointmentRepositoryCustom {
+    
+    List<AppointmentView> findViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                    Appointment.Status status, Sort sort);
+    
+    /** The first {@code limit} rows in {@code sort} order. */
+    List<AppointmentView> findViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                    Appointment.Status status, Sort sort, int limit);
+    
+    /**
+     * Up to {@code limit} rows in (date, time, id) order that come strictly after {@code after},
+     * or from the start when it is null. Seeks on the index instead of skipping an offset, so
+     * every page costs the same.
+     */
+    List<AppointmentView> findViewsAfter(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                         Appointment.Status status, AppointmentCursor after, int limit);
+    
+    /** Must be consumed and closed inside a transaction. */
+    Stream<AppointmentView> streamViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                        Appointment.Status status, Sort sort);
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.AppointmentCursor;
+import com.eyecare.dto.AppointmentView;
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+    
+    private static final int STREAM_FETCH_SIZE = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<AppointmentView> findViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                           Appointment.Status status, Sort sort) {
+        return viewQuery(from, to, doctorId, patientId, status, sort, null).getResultList();
+    }
+    
+    @Override
+    public List<AppointmentView> findViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                           Appointment.Status status, Sort sort, int limit) {
+        return viewQuery(from, to, doctorId, patientId, status, sort, null).setMaxResults(limit).getResultList();
+    }
+    
+    @Override
+    public List<AppointmentView> findViewsAfter(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                                Appointment.Status status, AppointmentCursor after, int limit) {
+        return viewQuery(from, to, doctorId, patientId, status, Sort.unsorted(), after).setMaxResults(limit).getResultList();
+    }
+    
+    @Override
+    public Stream<AppointmentView> streamViews(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                               Appointment.Status status, Sort sort) {
+        return viewQuery(from, to, doctorId, patientId, status, sort, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+    
+    private TypedQuery<AppointmentView> viewQuery(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                                  Appointment.Status status, Sort sort, AppointmentCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentView> query = cb.createQuery(AppointmentView.class);
+        Root<Appointment> appointment = query.from(Appointment.class);
+        Join<Appointment, Patient> patient = appointment.join("patient");
+        Join<Patient, User> patientUser = patient.join("user");
+        Join<Appointment, Doctor> doctor = appointment.join("doctor");
+        Join<Doctor, User> doctorUser = doctor.join("user");
+        
+        query.select(cb.construct(AppointmentView.class,
+                appointment.get("id"),
+                patientUser.get("firstName"), patientUser.get("lastName"),
+                doctorUser.get("firstName"), doctorUser.get("lastName"),
+                appointment.get("appointmentDate"), appointment.get("appointmentTime"), appointment.get("duration"),
+                appointment.get("status"), appointment.get("reason"), appointment.get("notes"),
+                appointment.get("createdAt"), appointment.get("updatedAt")));
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (doctorId != null) {
+            predicates.add(cb.equal(appointment.get("doctor").get("id"), doctorId));
+        }
+        if (patientId != null) {
+            predicates.add(cb.equal(appointment.get("patient").get("id"), patientId));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(appointment.get("status"), status));
+        }
+        if (from != null && from.equals(to)) {
+            predicates.add(cb.equal(appointment.get("appointmentDate"), from));
+        } else {
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(appointment.<LocalDate>get("appointmentDate"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(appointment.<LocalDate>get("appointmentDate"), to));
+            }
+        }
+        if (after != null) {
+            // Row-value comparison (date, time, id) > cursor, spelled out for the criteria API. The
+            // leading date bound on its own lets the date indexes seek straight to the cursor.
+            Path<LocalDate> date = appointment.get("appointmentDate");
+            Path<LocalTime> time = appointment.get("appointmentTime");
+            Path<Long> id = appointment.get("id");
+            predicates.add(cb.greaterThanOrEqualTo(date, after.date()));
+            predicates.add(cb.or(
+                    cb.greaterThan(date, after.date()),
+                    cb.and(cb.equal(date, after.date()), cb.or(
+                            cb.greaterThan(time, after.time()),
+                            cb.and(cb.equal(time, after.time()), cb.greaterThan(id, after.id()))))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        
+        List<Order> orders = new ArrayList<>();
+        boolean ascending = true;
+        if (sort == null || sort.isUnsorted()) {
+            orders.add(cb.asc(appointment.get("appointmentDate")));
+            orders.add(cb.asc(appointment.get("appointmentTime")));
+        } else {
+            for (Sort.Order order : sort) {
+                ascending = order.isAscending();
+                orders.add(ascending
+                        ? cb.asc(appointment.get(order.getProperty()))
+                        : cb.desc(appointment.get(order.getProperty())));
+            }
+        }
+        // Tie-break on id so streamed and repeated reads come back in a stable order
+        orders.add(ascending ? cb.asc(appointment.get("id")) : cb.desc(appointment.get("id")));
+        query.orderBy(orders);
+        
+        return entityManager.createQuery(query);
+    }
+}
\ No newline at end of file
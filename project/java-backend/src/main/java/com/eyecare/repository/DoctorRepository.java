@@ -1,7 +1,11 @@
 package com.eyecare.repository;
 
+import com.eyecare.dto.DoctorView;
 import com.eyecare.model.Doctor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +17,39 @@ import java.util.Optional;
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Optional<Doctor> findByUserId(Long userId);
     
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Doctor> findAll();
+    
+    @Query("SELECT d.id FROM Doctor d WHERE d.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id")
+    Optional<Doctor> lockById(@Param("id") Long id);
+    
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT d FROM Doctor d WHERE " +
            "(:specialization IS NULL OR LOWER(d.specialization) LIKE LOWER(CONCAT('%', :specialization, '%')))")
     List<Doctor> findBySpecialization(@Param("specialization") String specialization);
+    
+    @Query("SELECT new com.eyecare.dto.DoctorView(d.id, u.firstName, u.lastName, u.email, u.phone, d.specialization, " +
+           "d.licenseNumber, d.yearsExperience, d.consultationFee, d.bio, d.availableDays, d.availableHours) " +
+           "FROM Doctor d JOIN d.user u WHERE u.isActive = true AND " +
+           "(:specialization IS NULL OR LOWER(d.specialization) LIKE LOWER(CONCAT('%', :specialization, '%')))")
+    List<DoctorView> findActiveViews(@Param("specialization") String specialization);
+    
+    @Query("SELECT d.id, u.firstName, u.lastName FROM Doctor d JOIN d.user u WHERE u.isActive = true")
+    List<Object[]> findActiveNames();
+    
+    @Query("SELECT d.id, u.firstName, u.lastName FROM Doctor d JOIN d.user u")
+    List<Object[]> findAllNames();
+    
+    @Query("SELECT new com.eyecare.dto.DoctorView(d.id, u.firstName, u.lastName, u.email, u.phone, d.specialization, " +
+           "d.licenseNumber, d.yearsExperience, d.consultationFee, d.bio, d.availableDays, d.availableHours) " +
+           "FROM Doctor d JOIN d.user u WHERE " +
+           "d.id IN (SELECT a.doctor.id FROM Appointment a WHERE a.patient.id = :patientId) OR " +
+           "d.id IN (SELECT r.doctor.id FROM MedicalRecord r WHERE r.patient.id = :patientId) " +
+           "ORDER BY u.lastName, u.firstName, d.id")
+    List<DoctorView> findTreatingViews(@Param("patientId") Long patientId);
 }
\ No newline at end of file
@@ -1,29 +1,60 @@
 package com.eyecare.repository;
 
 import com.eyecare.model.MedicalRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
+public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long>, MedicalRecordRepositoryCustom {
     List<MedicalRecord> findByPatientId(Long patientId);
     List<MedicalRecord> findByDoctorId(Long doctorId);
     List<MedicalRecord> findByPatientIdOrderByVisitDateDesc(Long patientId);
     
-    @Query("SELECT mr FROM MedicalRecord mr WHERE " +
-           "(:patientId IS NULL OR mr.patient.id = :patientId) AND " +
-           "(:doctorId IS NULL OR mr.doctor.id = :doctorId) AND " +
-           "(:startDate IS NULL OR mr.visitDate >= :startDate) AND " +
-           "(:endDate IS NULL OR mr.visitDate <= :endDate)")
-    List<MedicalRecord> findByFilters(
-        @Param("patientId") Long patientId,
-        @Param("doctorId") Long doctorId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate
-    );
+    @EntityGraph(attributePaths = {"patient.user", "doctor.user"})
+    Optional<MedicalRecord> findDetailById(Long id);
+    
+    @Query("SELECT m.id, m.patient.id, m.doctor.id, m.visitDate, m.chiefComplaint, m.diagnosis, m.treatmentPlan, " +
+           "m.prescription, m.notes FROM MedicalRecord m WHERE m.id > :afterId AND m.updatedAt > :since ORDER BY m.id")
+    List<Object[]> findNoteFieldsAfter(@Param("afterId") Long afterId, @Param("since") LocalDateTime since, Pageable pageable);
+    
+    @Query("SELECT m.id, m.doctor.id, m.patient.id, m.visitDate, m.iopRight, m.iopLeft, SUBSTRING(m.diagnosis, 1, 200), " +
+           "m.followUpDate FROM MedicalRecord m WHERE m.id > :afterId ORDER BY m.id")
+    List<Object[]> findAnalyticsRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT m.id, m.doctor.id, m.patient.id, m.visitDate, m.iopRight, m.iopLeft, SUBSTRING(m.diagnosis, 1, 200), " +
+           "m.followUpDate FROM MedicalRecord m WHERE m.id > :afterId AND m.id <= :maxId AND m.updatedAt > :since " +
+           "ORDER BY m.id")
+    List<Object[]> findAnalyticsRowsChanged(@Param("afterId") Long afterId, @Param("maxId") Long maxId,
+                                            @Param("since") LocalDateTime since, Pageable pageable);
+    
+    long countByIdLessThanEqual(Long id);
+    
+    @Query("SELECT m.visitDate, m.iopRight, m.iopLeft, m.logmarRight, m.logmarLeft FROM MedicalRecord m " +
+           "WHERE m.patient.id = :patientId " +
+           "AND (m.iopMax IS NOT NULL OR m.logmarRight IS NOT NULL OR m.logmarLeft IS NOT NULL) " +
+           "ORDER BY m.visitDate, m.id")
+    List<Object[]> findVitalsByPatientId(@Param("patientId") Long patientId);
+    
+    @Query("SELECT m.id, m.eyePressureRight, m.eyePressureLeft, m.visualAcuityRight, m.visualAcuityLeft " +
+           "FROM MedicalRecord m WHERE m.id > :afterId AND (m.vitalsVersion IS NULL OR m.vitalsVersion < :version) " +
+           "ORDER BY m.id")
+    List<Object[]> findVitalsPendingAfter(@Param("afterId") Long afterId, @Param("version") Short version, Pageable pageable);
+    
+    /** Bulk update, so the row's updatedAt is left alone; a no-op if a newer write got there first. */
+    @Modifying
+    @Query("UPDATE MedicalRecord m SET m.iopRight = :iopRight, m.iopLeft = :iopLeft, m.iopMax = :iopMax, " +
+           "m.logmarRight = :logmarRight, m.logmarLeft = :logmarLeft, m.vitalsVersion = :version " +
+           "WHERE m.id = :id AND (m.vitalsVersion IS NULL OR m.vitalsVersion < :version)")
+    int updateVitals(@Param("id") Long id, @Param("iopRight") Short iopRight, @Param("iopLeft") Short iopLeft,
+                     @Param("iopMax") Short iopMax, @Param("logmarRight") Double logmarRight,
+                     @Param("logmarLeft") Double logmarLeft, @Param("version") Short version);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.MedicalRecordCursor;
+import com.eyecare.dto.MedicalRecordListView;
+import com.eyecare.dto.MedicalRecordView;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Medical record view queries built from only the filters that are present. Null arguments
+ * are ignored; an unsorted {@link Sort} orders by visit date. {@code iopAbove} keeps records
+ * where either eye measured strictly above that pressure. Paged reads return the compact
+ * {@link MedicalRecordListView}.
+ */
+public interface MedicalRecordRepositoryCustom {
+    
+    /** The first {@code limit} rows in {@code sort} order. */
+    List<MedicalRecordListView> findViews(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate, Integer iopAbove,
+                                          Sort sort, int limit);
+    
+    /**
+     * Up to {@code limit} rows, newest visit first with ties broken by id descending, that come
+     * strictly after {@code after}, or from the start when it is null.
+     */
+    List<MedicalRecordListView> findViewsAfter(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                               Integer iopAbove, MedicalRecordCursor after, int limit);
+    
+    /** List views for the given ids, in the order the ids are listed. */
+    List<MedicalRecordListView> findViewsByIds(List<Long> ids);
+    
+    /** Full rows including the free-text columns. Must be consumed and closed inside a transaction. */
+    Stream<MedicalRecordView> streamViews(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate, Sort sort);
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.MedicalRecordCursor;
+import com.eyecare.dto.MedicalRecordListView;
+import com.eyecare.dto.MedicalRecordView;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.MedicalRecord;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class MedicalRecordRepositoryImpl implements MedicalRecordRepositoryCustom {
+    
+    private static final int STREAM_FETCH_SIZE = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<MedicalRecordListView> findViews(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate, Integer iopAbove,
+                                                 Sort sort, int limit) {
+        return viewQuery(MedicalRecordListView.class, patientId, doctorId, startDate, endDate, iopAbove, sort, null)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    @Override
+    public List<MedicalRecordListView> findViewsAfter(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                                      Integer iopAbove, MedicalRecordCursor after, int limit) {
+        return viewQuery(MedicalRecordListView.class, patientId, doctorId, startDate, endDate, iopAbove,
+                Sort.by(Sort.Direction.DESC, "visitDate"), after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    @Override
+    public Stream<MedicalRecordView> streamViews(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate, Sort sort) {
+        return viewQuery(MedicalRecordView.class, patientId, doctorId, startDate, endDate, null, sort, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+    
+    @Override
+    public List<MedicalRecordListView> findViewsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MedicalRecordListView> query = cb.createQuery(MedicalRecordListView.class);
+        Root<MedicalRecord> record = query.from(MedicalRecord.class);
+        Join<MedicalRecord, Patient> patient = record.join("patient");
+        Join<Patient, User> patientUser = patient.join("user");
+        Join<MedicalRecord, Doctor> doctor = record.join("doctor");
+        Join<Doctor, User> doctorUser = doctor.join("user");
+        query.select(selection(cb, MedicalRecordListView.class, record, patientUser, doctorUser))
+                .where(record.get("id").in(ids));
+        
+        Map<Long, MedicalRecordListView> byId = new HashMap<>();
+        for (MedicalRecordListView view : entityManager.createQuery(query).getResultList()) {
+            byId.put(view.id(), view);
+        }
+        List<MedicalRecordListView> views = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MedicalRecordListView view = byId.get(id);
+            if (view != null) {
+                views.add(view);
+            }
+        }
+        return views;
+    }
+    
+    private <T> TypedQuery<T> viewQuery(Class<T> type, Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                        Integer iopAbove, Sort sort, MedicalRecordCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<MedicalRecord> record = query.from(MedicalRecord.class);
+        Join<MedicalRecord, Patient> patient = record.join("patient");
+        Join<Patient, User> patientUser = patient.join("user");
+        Join<MedicalRecord, Doctor> doctor = record.join("doctor");
+        Join<Doctor, User> doctorUser = doctor.join("user");
+        
+        query.select(selection(cb, type, record, patientUser, doctorUser));
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (patientId != null) {
+            predicates.add(cb.equal(record.get("patient").get("id"), patientId));
+        }
+        if (doctorId != null) {
+            predicates.add(cb.equal(record.get("doctor").get("id"), doctorId));
+        }
+        if (startDate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(record.<LocalDate>get("visitDate"), startDate));
+        }
+        if (endDate != null) {
+            predicates.add(cb.lessThanOrEqualTo(record.<LocalDate>get("visitDate"), endDate));
+        }
+        if (iopAbove != null) {
+            predicates.add(cb.greaterThan(record.<Short>get("iopMax"), iopAbove.shortValue()));
+        }
+        if (after != null) {
+            // (visitDate, id) < cursor for the newest-first order; the date bound alone lets the
+            // visit date indexes seek straight to the cursor
+            Path<LocalDate> visitDate = record.get("visitDate");
+            Path<Long> id = record.get("id");
+            predicates.add(cb.lessThanOrEqualTo(visitDate, after.visitDate()));
+            predicates.add(cb.or(
+                    cb.lessThan(visitDate, after.visitDate()),
+                    cb.and(cb.equal(visitDate, after.visitDate()), cb.lessThan(id, after.id()))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        
+        List<Order> orders = new ArrayList<>();
+        boolean ascending = true;
+        if (sort == null || sort.isUnsorted()) {
+            orders.add(cb.asc(record.get("visitDate")));
+        } else {
+            for (Sort.Order order : sort) {
+                ascending = order.isAscending();
+                orders.add(ascending
+                        ? cb.asc(record.get(order.getProperty()))
+                        : cb.desc(record.get(order.getProperty())));
+            }
+        }
+        // Tie-break on id so streamed and repeated reads come back in a stable order; following
+        // the last direction keeps a newest-first page on one backward index scan
+        orders.add(ascending ? cb.asc(record.get("id")) : cb.desc(record.get("id")));
+        query.orderBy(orders);
+        
+        return entityManager.createQuery(query);
+    }
+    
+    private static <T> CompoundSelection<T> selection(CriteriaBuilder cb, Class<T> type, Root<MedicalRecord> record,
+                                                      Join<Patient, User> patientUser, Join<Doctor, User> doctorUser) {
+        if (type == MedicalRecordListView.class) {
+            // Only the head of the diagnosis leaves the database; the other TEXT columns are
+            // left to the detail endpoint
+            return cb.construct(type,
+                    record.get("id"),
+                    patientUser.get("firstName"), patientUser.get("lastName"),
+                    doctorUser.get("firstName"), doctorUser.get("lastName"),
+                    record.get("visitDate"),
+                    cb.substring(record.get("diagnosis"), 1, MedicalRecordListView.PREVIEW_LENGTH + 1),
+                    record.get("followUpDate"),
+                    record.get("visualAcuityRight"), record.get("visualAcuityLeft"),
+                    record.get("eyePressureRight"), record.get("eyePressureLeft"),
+                    record.get("createdAt"));
+        }
+        return cb.construct(type,
+                record.get("id"),
+                patientUser.get("firstName"), patientUser.get("lastName"),
+                doctorUser.get("firstName"), doctorUser.get("lastName"),
+                record.get("visitDate"), record.get("chiefComplaint"), record.get("diagnosis"),
+                record.get("treatmentPlan"), record.get("prescription"), record.get("followUpDate"),
+                record.get("visualAcuityRight"), record.get("visualAcuityLeft"),
+                record.get("eyePressureRight"), record.get("eyePressureLeft"),
+                record.get("notes"), record.get("createdAt"));
+    }
+}
\ No newline at end of file
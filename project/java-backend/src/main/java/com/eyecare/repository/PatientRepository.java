@@ -1,6 +1,8 @@
 package com.eyecare.repository;
 
 import com.eyecare.model.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,12 +12,17 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientRepositoryCustom {
     Optional<Patient> findByUserId(Long userId);
     
-    @Query("SELECT p FROM Patient p WHERE " +
-           "LOWER(p.user.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.user.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.user.email) LIKE LOWER(CONCAT('%', :search, '%'))")
-    List<Patient> findBySearchTerm(@Param("search") String search);
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Patient> findAll();
+    
+    @Query("SELECT p.id FROM Patient p WHERE p.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT p.id, u.firstName, u.lastName, u.email, u.phone FROM Patient p JOIN p.user u " +
+           "WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.PatientListView;
+import com.eyecare.dto.PatientView;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Patient view queries that page and sort in the database. A null or blank search matches
+ * every patient; an unsorted {@link Sort} orders by id.
+ */
+public interface PatientRepositoryCustom {
+    
+    List<PatientListView> findViews(String search, Sort sort, long offset, int limit);
+    
+    /** Views for the given ids, in the order the ids are listed. */
+    List<PatientListView> findViewsByIds(List<Long> ids);
+    
+    /** The full view, including address and the clinical free text. */
+    Optional<PatientView> findViewById(Long id);
+    
+    /** Counts without the joins and projection of {@link #findViews} when there is no search. */
+    long countViews(String search);
+}
\ No newline at end of file
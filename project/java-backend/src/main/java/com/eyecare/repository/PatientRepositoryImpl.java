@@ -0,0 +1,140 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.PatientListView;
+import com.eyecare.dto.PatientView;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+public class PatientRepositoryImpl implements PatientRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<PatientListView> findViews(String search, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientListView> query = cb.createQuery(PatientListView.class);
+        Root<Patient> patient = query.from(Patient.class);
+        Join<Patient, User> user = patient.join("user");
+        
+        query.select(listView(cb, patient, user));
+        if (hasSearch(search)) {
+            query.where(searchPredicate(cb, user, search));
+        }
+        
+        List<Order> orders = new ArrayList<>();
+        boolean ascending = true;
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                ascending = order.isAscending();
+                Path<?> path = order.getProperty().startsWith("user.")
+                        ? user.get(order.getProperty().substring("user.".length()))
+                        : patient.get(order.getProperty());
+                orders.add(ascending ? cb.asc(path) : cb.desc(path));
+            }
+        }
+        // Offsets are only stable over a total order, so always finish on the primary key
+        orders.add(ascending ? cb.asc(patient.get("id")) : cb.desc(patient.get("id")));
+        query.orderBy(orders);
+        
+        return entityManager.createQuery(query)
+                .setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    @Override
+    public List<PatientListView> findViewsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientListView> query = cb.createQuery(PatientListView.class);
+        Root<Patient> patient = query.from(Patient.class);
+        Join<Patient, User> user = patient.join("user");
+        query.select(listView(cb, patient, user)).where(patient.get("id").in(ids));
+        
+        Map<Long, PatientListView> byId = new HashMap<>();
+        for (PatientListView view : entityManager.createQuery(query).getResultList()) {
+            byId.put(view.id(), view);
+        }
+        List<PatientListView> views = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PatientListView view = byId.get(id);
+            if (view != null) {
+                views.add(view);
+            }
+        }
+        return views;
+    }
+    
+    @Override
+    public Optional<PatientView> findViewById(Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientView> query = cb.createQuery(PatientView.class);
+        Root<Patient> patient = query.from(Patient.class);
+        Join<Patient, User> user = patient.join("user");
+        query.select(view(cb, patient, user)).where(cb.equal(patient.get("id"), id));
+        return entityManager.createQuery(query).getResultList().stream().findFirst();
+    }
+    
+    @Override
+    public long countViews(String search) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Patient> patient = query.from(Patient.class);
+        query.select(cb.count(patient));
+        if (hasSearch(search)) {
+            query.where(searchPredicate(cb, patient.join("user"), search));
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+    
+    private static CompoundSelection<PatientListView> listView(CriteriaBuilder cb, Root<Patient> patient, Join<Patient, User> user) {
+        return cb.construct(PatientListView.class,
+                patient.get("id"), user.get("firstName"), user.get("lastName"), user.get("email"),
+                user.get("phone"), user.get("dateOfBirth"),
+                patient.get("emergencyContact"), patient.get("emergencyPhone"),
+                patient.get("insuranceProvider"), patient.get("insuranceNumber"));
+    }
+    
+    private static CompoundSelection<PatientView> view(CriteriaBuilder cb, Root<Patient> patient, Join<Patient, User> user) {
+        return cb.construct(PatientView.class,
+                patient.get("id"), user.get("firstName"), user.get("lastName"), user.get("email"),
+                user.get("phone"), user.get("dateOfBirth"), user.get("address"),
+                patient.get("emergencyContact"), patient.get("emergencyPhone"),
+                patient.get("insuranceProvider"), patient.get("insuranceNumber"),
+                patient.get("allergies"), patient.get("currentMedications"), patient.get("medicalHistory"));
+    }
+    
+    private static boolean hasSearch(String search) {
+        return search != null && !search.isBlank();
+    }
+    
+    private static Predicate searchPredicate(CriteriaBuilder cb, Join<Patient, User> user, String search) {
+        String pattern = "%" + search.trim().toLowerCase(Locale.ROOT) + "%";
+        Expression<String> firstName = cb.lower(user.get("firstName"));
+        Expression<String> lastName = cb.lower(user.get("lastName"));
+        Expression<String> email = cb.lower(user.get("email"));
+        return cb.or(cb.like(firstName, pattern), cb.like(lastName, pattern), cb.like(email, pattern));
+    }
+}
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.eyecare.repository;
 
 import com.eyecare.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsernameOrEmail(String username, String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+    
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
+    
+    @Query("SELECT u.id, u.username, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findIdentitiesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT u.username, u.email FROM User u WHERE u.username = :username OR u.email = :email")
+    List<Object[]> findIdentityConflicts(@Param("username") String username, @Param("email") String email);
+    
+    @Query("SELECT u.username, u.email FROM User u WHERE u.username IN :usernames OR u.email IN :emails")
+    List<Object[]> findIdentityConflictsIn(@Param("usernames") Collection<String> usernames, @Param("emails") Collection<String> emails);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.eyecare.security;
+
+public class HashingCapacityException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int retryAfterSeconds;
+    
+    public HashingCapacityException(int retryAfterSeconds) {
+        super("Password hashing capacity exhausted");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
\ No newline at end of file
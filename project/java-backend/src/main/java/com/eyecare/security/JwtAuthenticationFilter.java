@@ -1,6 +1,7 @@
 package com.eyecare.security;
 
-import com.eyecare.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,7 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,7 +22,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
     
     @Autowired
-    private UserService userService;
+    private VerifiedTokenCache tokenCache;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -30,24 +33,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtils.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("Cannot get JWT Token", e);
+            String jwt = authorizationHeader.substring(7);
+            claims = tokenCache.get(jwt);
+            if (claims == null) {
+                try {
+                    claims = jwtUtils.extractAllClaims(jwt);
+                    tokenCache.put(jwt, claims);
+                } catch (JwtException | IllegalArgumentException e) {
+                    logger.error("Cannot get JWT Token", e);
+                }
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserPrincipal principal = UserPrincipal.fromClaims(claims);
             
-            if (jwtUtils.validateToken(jwt, userDetails)) {
+            if (principal != null && principal.isEnabled() && tokenVersionRegistry.isCurrent(principal)
+                    && jwtUtils.validateToken(claims, principal)) {
                 UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -0,0 +1,133 @@
+package com.eyecare.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket limiter for login attempts, keyed by username and by client IP.
+ * Each bucket is a single AtomicLong holding its theoretical arrival time (GCRA), so
+ * admission is one CAS and idle buckets can be dropped without losing any state.
+ */
+@Component
+public class LoginThrottle {
+    
+    private static final long RETIRED = Long.MAX_VALUE;
+    
+    private final Limit usernameLimit;
+    private final Limit ipLimit;
+    
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    
+    public LoginThrottle(@Value("${security.login.throttle.username.burst:5}") int usernameBurst,
+                         @Value("${security.login.throttle.username.per-minute:5}") int usernamePerMinute,
+                         @Value("${security.login.throttle.ip.burst:100}") int ipBurst,
+                         @Value("${security.login.throttle.ip.per-minute:300}") int ipPerMinute) {
+        this.usernameLimit = new Limit(usernameBurst, usernamePerMinute);
+        // Clinics behind one NAT share an address; 0 turns the per-IP limit off
+        this.ipLimit = ipPerMinute > 0 ? new Limit(ipBurst, ipPerMinute) : null;
+    }
+    
+    /**
+     * Consumes one attempt for both the username and the client IP.
+     *
+     * @return 0 if the attempt may proceed, otherwise the milliseconds until it would be allowed
+     */
+    public long tryAcquire(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        long ipWait = ipLimit != null ? acquire("ip:" + clientIp, ipLimit, now) : 0;
+        if (ipWait > 0) {
+            rejectedByIp.increment();
+            return ipWait;
+        }
+        long usernameWait = acquire(usernameKey(username), usernameLimit, now);
+        if (usernameWait > 0) {
+            rejectedByUsername.increment();
+            return usernameWait;
+        }
+        allowed.increment();
+        return 0;
+    }
+    
+    public void reset(String username) {
+        buckets.remove(usernameKey(username));
+    }
+    
+    @Scheduled(fixedDelayString = "${security.login.throttle.sweep-ms:60000}")
+    public void sweep() {
+        // A bucket whose arrival time has passed is indistinguishable from a fresh one. Retiring
+        // it with a CAS means an attempt racing the sweep either lands first and keeps the
+        // bucket, or sees it retired and starts a new one; it is never counted on an orphan.
+        long now = System.currentTimeMillis();
+        for (String key : buckets.keySet()) {
+            buckets.computeIfPresent(key, (k, tat) -> {
+                long current = tat.get();
+                return current <= now && tat.compareAndSet(current, RETIRED) ? null : tat;
+            });
+        }
+    }
+    
+    public long getAllowed() { return allowed.sum(); }
+    
+    public long getRejectedByUsername() { return rejectedByUsername.sum(); }
+    
+    public long getRejectedByIp() { return rejectedByIp.sum(); }
+    
+    public int size() { return buckets.size(); }
+    
+    private long acquire(String key, Limit limit, long now) {
+        AtomicLong tat = bucket(key, now);
+        while (true) {
+            long current = tat.get();
+            if (current == RETIRED) {
+                // Swept after we looked it up; wait out the removal and use a fresh bucket
+                buckets.remove(key, tat);
+                tat = bucket(key, now);
+                continue;
+            }
+            long next = Math.max(current, now) + limit.intervalMs;
+            long wait = next - now - limit.toleranceMs;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            AtomicLong created = new AtomicLong(now);
+            tat = buckets.putIfAbsent(key, created);
+            if (tat == null) {
+                tat = created;
+            }
+        }
+        return tat;
+    }
+    
+    private static String usernameKey(String username) {
+        return "user:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+    
+    private static final class Limit {
+        final long intervalMs;
+        final long toleranceMs;
+        
+        Limit(int burst, int perMinute) {
+            this.intervalMs = 60_000L / Math.max(1, perMinute);
+            this.toleranceMs = intervalMs * Math.max(1, burst);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.eyecare.security;
+
+import com.eyecare.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimum token version accepted per user. Only users whose version was ever bumped
+ * (deactivation, role change) are tracked; everyone else implicitly accepts version 0.
+ */
+@Component
+public class TokenVersionRegistry {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private final ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.token-version.refresh-ms:30000}")
+    public void refresh() {
+        // Picks up bumps made by other nodes; local bumps are already applied
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            versions.merge((Long) row[0], (Integer) row[1], Math::max);
+        }
+    }
+    
+    public boolean isCurrent(UserPrincipal principal) {
+        return principal.getTokenVersion() >= versions.getOrDefault(principal.getId(), 0);
+    }
+    
+    public void update(Long userId, int tokenVersion) {
+        versions.merge(userId, tokenVersion, Math::max);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.eyecare.security;
+
+import com.eyecare.model.User;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated user rebuilt from verified JWT claims, so request handling never has to
+ * reload the {@link User} row just to know who is calling.
+ */
+public class UserPrincipal implements UserDetails {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long id;
+    private final String username;
+    private final User.Role role;
+    private final boolean active;
+    private final int tokenVersion;
+    
+    public UserPrincipal(Long id, String username, User.Role role, boolean active, int tokenVersion) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.active = active;
+        this.tokenVersion = tokenVersion;
+    }
+    
+    public static UserPrincipal fromClaims(Claims claims) {
+        Object id = claims.get(JwtUtils.CLAIM_USER_ID);
+        Object role = claims.get(JwtUtils.CLAIM_ROLE);
+        Object active = claims.get(JwtUtils.CLAIM_ACTIVE);
+        Object version = claims.get(JwtUtils.CLAIM_TOKEN_VERSION);
+        if (!(id instanceof Number) || !(role instanceof String) || !(version instanceof Number)) {
+            return null;
+        }
+        return new UserPrincipal(((Number) id).longValue(),
+                                 claims.getSubject(),
+                                 User.Role.valueOf((String) role),
+                                 Boolean.TRUE.equals(active),
+                                 ((Number) version).intValue());
+    }
+    
+    public Long getId() { return id; }
+    
+    public User.Role getRole() { return role; }
+    
+    public int getTokenVersion() { return tokenVersion; }
+    
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+    
+    @Override
+    public String getPassword() {
+        return null;
+    }
+    
+    @Override
+    public String getUsername() {
+        return username;
+    }
+    
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+    
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,557 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.DiagnosesPerMonth;
+import com.eyecare.dto.FollowUpCompliance;
+import com.eyecare.dto.IopByDoctor;
+import com.eyecare.model.Appointment;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.MedicalRecordRepository;
+import com.eyecare.service.AnalyticsSnapshot.AppointmentColumns;
+import com.eyecare.service.AnalyticsSnapshot.RecordColumns;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregate reporting over an in-memory {@link AnalyticsSnapshot}, so group-by scans never
+ * touch the transactional tables. The snapshot is refreshed on a schedule by appending new
+ * rows and patching rows whose updatedAt moved, and rebuilt from scratch when rows were
+ * deleted. Readers keep using the previous snapshot until the next one is published.
+ * Refreshes run on their own thread, so a long rebuild never holds up the shared scheduler.
+ */
+@Service
+public class AnalyticsService {
+    
+    private static final int PAGE_SIZE = 5000;
+    private static final int SCAN_GRAIN = 1 << 14;
+    private static final int MAX_DIAGNOSIS_LENGTH = 80;
+    private static final int MAX_MONTHS = 240;
+    // updatedAt is stamped before commit, so a slow transaction can land behind the last refresh
+    private static final Duration CHANGE_MARGIN = Duration.ofMinutes(5);
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private VitalsBackfill vitalsBackfill;
+    
+    private final ForkJoinPool scanPool;
+    private final ExecutorService refreshExecutor;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile AnalyticsSnapshot snapshot = AnalyticsSnapshot.EMPTY;
+    
+    // Writer state, only touched inside refresh()
+    private RecordColumns records;
+    private AppointmentColumns appointments;
+    private final Map<Long, Integer> doctorCodes = new HashMap<>();
+    private final List<Long> doctorIds = new ArrayList<>();
+    private final Map<String, Integer> diagnosisCodes = new HashMap<>();
+    private final List<String> diagnoses = new ArrayList<>();
+    private LocalDateTime lastRefreshStart;
+    private long backfilledAtRefresh;
+    
+    private final LongAdder fullRebuilds = new LongAdder();
+    private final LongAdder incrementalRefreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long lastRefreshMillis;
+    
+    public AnalyticsService(@Value("${analytics.parallelism:0}") int parallelism) {
+        this.scanPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analytics-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+        scanPool.shutdownNow();
+    }
+    
+    /** Hands the refresh to its own thread; skipped while the previous one is still running. */
+    @Scheduled(fixedDelayString = "${analytics.refresh-ms:60000}")
+    public void scheduleRefresh() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                refresh();
+            } finally {
+                refreshPending.set(false);
+            }
+        });
+    }
+    
+    public synchronized void refresh() {
+        long started = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            // The vitals backfill bypasses updatedAt, so its work only shows up through a rebuild
+            long backfilled = vitalsBackfill.isRunning() ? backfilledAtRefresh : vitalsBackfill.getUpdated();
+            boolean full = records == null || backfilled != backfilledAtRefresh
+                    || !catchUp(lastRefreshStart.minus(CHANGE_MARGIN));
+            if (full) {
+                rebuild();
+            }
+            publish(startedAt);
+            backfilledAtRefresh = backfilled;
+            lastRefreshStart = startedAt;
+            (full ? fullRebuilds : incrementalRefreshes).increment();
+        } catch (RuntimeException e) {
+            // Keep serving the last snapshot and start over on the next run
+            failures.increment();
+            records = null;
+        }
+        lastRefreshMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+    
+    public IopByDoctor iopByDoctor(LocalDate from, LocalDate to, int elevatedAbove) {
+        AnalyticsSnapshot current = snapshot;
+        RecordColumns columns = current.records;
+        int doctors = current.doctorIds.length;
+        int fromDay = from != null ? day(from) : Integer.MIN_VALUE;
+        int toDay = to != null ? day(to) : Integer.MAX_VALUE;
+        
+        // Per doctor: visits, measured eyes, pressure sum, elevated visits
+        long[] totals = scan(columns.size, (start, end) -> {
+            long[] acc = new long[doctors * 4];
+            for (int i = start; i < end; i++) {
+                int visitDay = columns.visitDays[i];
+                if (visitDay < fromDay || visitDay > toDay) {
+                    continue;
+                }
+                int slot = columns.doctors[i] * 4;
+                short right = columns.iopRight[i];
+                short left = columns.iopLeft[i];
+                acc[slot]++;
+                if (right != AnalyticsSnapshot.NO_IOP) {
+                    acc[slot + 1]++;
+                    acc[slot + 2] += right;
+                }
+                if (left != AnalyticsSnapshot.NO_IOP) {
+                    acc[slot + 1]++;
+                    acc[slot + 2] += left;
+                }
+                if (right > elevatedAbove || left > elevatedAbove) {
+                    acc[slot + 3]++;
+                }
+            }
+            return acc;
+        }, AnalyticsService::sum);
+        
+        List<IopByDoctor.Doctor> result = new ArrayList<>();
+        for (int code = 0; code < doctors; code++) {
+            int slot = code * 4;
+            if (totals[slot] > 0) {
+                Double average = totals[slot + 1] > 0 ? round(totals[slot + 2] / (double) totals[slot + 1], 10) : null;
+                result.add(new IopByDoctor.Doctor(current.doctorIds[code], current.doctorNames[code],
+                        totals[slot], totals[slot + 1], average, totals[slot + 3]));
+            }
+        }
+        result.sort(Comparator.comparing(IopByDoctor.Doctor::doctorId));
+        return new IopByDoctor(current.refreshedAt, elevatedAbove, result);
+    }
+    
+    public FollowUpCompliance followUpCompliance(LocalDate from, LocalDate to, int windowDays) {
+        AnalyticsSnapshot current = snapshot;
+        RecordColumns columns = current.records;
+        long[] visits = current.visitKeys();
+        int doctors = current.doctorIds.length;
+        int fromDay = from != null ? Math.max(0, day(from)) : 0;
+        // A follow-up only counts once its whole window has passed
+        int lastDue = day(LocalDate.now()) - windowDays - 1;
+        int toDay = to != null ? Math.min(day(to), lastDue) : lastDue;
+        
+        // Per doctor: due, kept
+        long[] totals = scan(columns.size, (start, end) -> {
+            long[] acc = new long[doctors * 2];
+            for (int i = start; i < end; i++) {
+                int followUp = columns.followUpDays[i];
+                if (followUp < fromDay || followUp > toDay) {
+                    continue;
+                }
+                int slot = columns.doctors[i] * 2;
+                acc[slot]++;
+                long patient = columns.patients[i];
+                int earliest = Math.max(0, Math.max(followUp - windowDays, columns.visitDays[i] + 1));
+                long low = AnalyticsSnapshot.visitKey(patient, earliest);
+                long high = AnalyticsSnapshot.visitKey(patient, followUp + windowDays);
+                int position = Arrays.binarySearch(visits, low);
+                if (position < 0) {
+                    position = -position - 1;
+                }
+                if (position < visits.length && visits[position] <= high) {
+                    acc[slot + 1]++;
+                }
+            }
+            return acc;
+        }, AnalyticsService::sum);
+        
+        List<FollowUpCompliance.Doctor> result = new ArrayList<>();
+        long due = 0;
+        long kept = 0;
+        for (int code = 0; code < doctors; code++) {
+            int slot = code * 2;
+            if (totals[slot] > 0) {
+                due += totals[slot];
+                kept += totals[slot + 1];
+                result.add(new FollowUpCompliance.Doctor(current.doctorIds[code], current.doctorNames[code],
+                        totals[slot], totals[slot + 1], round(totals[slot + 1] / (double) totals[slot], 1000)));
+            }
+        }
+        result.sort(Comparator.comparing(FollowUpCompliance.Doctor::doctorId));
+        return new FollowUpCompliance(current.refreshedAt, windowDays, due, kept,
+                due > 0 ? round(kept / (double) due, 1000) : null, result);
+    }
+    
+    public DiagnosesPerMonth diagnosesPerMonth(LocalDate from, LocalDate to, int top) {
+        AnalyticsSnapshot current = snapshot;
+        RecordColumns columns = current.records;
+        YearMonth firstMonth = YearMonth.from(from);
+        int months = (int) firstMonth.until(YearMonth.from(to), ChronoUnit.MONTHS) + 1;
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("Date range must cover 1 to " + MAX_MONTHS + " months");
+        }
+        int fromDay = day(from);
+        int toDay = day(to);
+        int dictionary = current.diagnoses.length;
+        
+        long[] totals = scan(columns.size, (start, end) -> {
+            long[] acc = new long[dictionary];
+            for (int i = start; i < end; i++) {
+                int visitDay = columns.visitDays[i];
+                int code = columns.diagnoses[i];
+                if (code != AnalyticsSnapshot.NO_CODE && visitDay >= fromDay && visitDay <= toDay) {
+                    acc[code]++;
+                }
+            }
+            return acc;
+        }, AnalyticsService::sum);
+        
+        int[] ranked = topCodes(totals, top);
+        int[] rankOf = new int[dictionary];
+        Arrays.fill(rankOf, -1);
+        for (int rank = 0; rank < ranked.length; rank++) {
+            rankOf[ranked[rank]] = rank;
+        }
+        int[] monthStarts = new int[months + 1];
+        String[] labels = new String[months];
+        for (int m = 0; m <= months; m++) {
+            monthStarts[m] = day(firstMonth.plusMonths(m).atDay(1));
+            if (m < months) {
+                labels[m] = firstMonth.plusMonths(m).toString();
+            }
+        }
+        
+        long[] counts = scan(columns.size, (start, end) -> {
+            long[] acc = new long[ranked.length * months];
+            for (int i = start; i < end; i++) {
+                int visitDay = columns.visitDays[i];
+                int code = columns.diagnoses[i];
+                if (code == AnalyticsSnapshot.NO_CODE || rankOf[code] < 0 || visitDay < fromDay || visitDay > toDay) {
+                    continue;
+                }
+                int month = Arrays.binarySearch(monthStarts, visitDay);
+                if (month < 0) {
+                    month = -month - 2;
+                }
+                acc[rankOf[code] * months + month]++;
+            }
+            return acc;
+        }, AnalyticsService::sum);
+        
+        List<DiagnosesPerMonth.Series> series = new ArrayList<>(ranked.length);
+        for (int rank = 0; rank < ranked.length; rank++) {
+            int[] monthly = new int[months];
+            for (int m = 0; m < months; m++) {
+                monthly[m] = (int) counts[rank * months + m];
+            }
+            series.add(new DiagnosesPerMonth.Series(current.diagnoses[ranked[rank]], totals[ranked[rank]], monthly));
+        }
+        return new DiagnosesPerMonth(current.refreshedAt, labels, series);
+    }
+    
+    public Map<String, Object> describe() {
+        AnalyticsSnapshot current = snapshot;
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("refreshed_at", current.refreshedAt);
+        info.put("medical_records", current.records.size);
+        info.put("appointments", current.appointments.size);
+        info.put("doctors", current.doctorIds.length);
+        info.put("diagnoses", current.diagnoses.length);
+        info.put("memory_bytes", current.memoryBytes());
+        info.put("full_rebuilds", fullRebuilds.sum());
+        info.put("incremental_refreshes", incrementalRefreshes.sum());
+        info.put("failures", failures.sum());
+        info.put("last_refresh_ms", lastRefreshMillis);
+        return info;
+    }
+    
+    private boolean catchUp(LocalDateTime since) {
+        if (!patchRecords(since) || !patchAppointments(since)) {
+            return false;
+        }
+        appendRecords();
+        appendAppointments();
+        // Catches deletes, and rows that committed under the high-water mark after it moved past them
+        return medicalRecordRepository.countByIdLessThanEqual(records.maxId()) == records.size
+                && appointmentRepository.countByIdLessThanEqual(appointments.maxId()) == appointments.size;
+    }
+    
+    private void rebuild() {
+        records = new RecordColumns(1024);
+        appointments = new AppointmentColumns(1024);
+        diagnosisCodes.clear();
+        diagnoses.clear();
+        appendRecords();
+        appendAppointments();
+    }
+    
+    private void publish(LocalDateTime refreshedAt) {
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : doctorRepository.findAllNames()) {
+            names.put((Long) row[0], row[1] + " " + row[2]);
+        }
+        long[] ids = new long[doctorIds.size()];
+        String[] doctorNames = new String[ids.length];
+        for (int code = 0; code < ids.length; code++) {
+            ids[code] = doctorIds.get(code);
+            doctorNames[code] = names.getOrDefault(ids[code], "");
+        }
+        snapshot = new AnalyticsSnapshot(records.publish(), appointments.publish(), ids, doctorNames,
+                diagnoses.toArray(new String[0]), refreshedAt);
+    }
+    
+    private void appendRecords() {
+        List<Object[]> rows;
+        do {
+            rows = medicalRecordRepository.findAnalyticsRowsAfter(records.maxId(), PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                writeRecord(row, -1);
+            }
+        } while (rows.size() == PAGE_SIZE);
+    }
+    
+    private boolean patchRecords(LocalDateTime since) {
+        long maxId = records.maxId();
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = medicalRecordRepository.findAnalyticsRowsChanged(afterId, maxId, since, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                int index = records.indexOf((Long) row[0]);
+                if (index < 0) {
+                    return false;
+                }
+                writeRecord(row, index);
+                afterId = (Long) row[0];
+            }
+        } while (rows.size() == PAGE_SIZE);
+        return true;
+    }
+    
+    private void writeRecord(Object[] row, int index) {
+        long id = (Long) row[0];
+        int doctor = doctorCode((Long) row[1]);
+        long patient = (Long) row[2];
+        int visitDay = row[3] != null ? day((LocalDate) row[3]) : AnalyticsSnapshot.NO_DAY;
+        short right = row[4] != null ? (Short) row[4] : AnalyticsSnapshot.NO_IOP;
+        short left = row[5] != null ? (Short) row[5] : AnalyticsSnapshot.NO_IOP;
+        int diagnosis = diagnosisCode((String) row[6]);
+        int followUpDay = row[7] != null ? day((LocalDate) row[7]) : AnalyticsSnapshot.NO_DAY;
+        if (index < 0) {
+            records.append(id, doctor, patient, visitDay, right, left, diagnosis, followUpDay);
+        } else {
+            records.update(index, id, doctor, patient, visitDay, right, left, diagnosis, followUpDay);
+        }
+    }
+    
+    private void appendAppointments() {
+        List<Object[]> rows;
+        do {
+            rows = appointmentRepository.findAnalyticsRowsAfter(appointments.maxId(), PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                writeAppointment(row, -1);
+            }
+        } while (rows.size() == PAGE_SIZE);
+    }
+    
+    private boolean patchAppointments(LocalDateTime since) {
+        long maxId = appointments.maxId();
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = appointmentRepository.findAnalyticsRowsChanged(afterId, maxId, since, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                int index = appointments.indexOf((Long) row[0]);
+                if (index < 0) {
+                    return false;
+                }
+                writeAppointment(row, index);
+                afterId = (Long) row[0];
+            }
+        } while (rows.size() == PAGE_SIZE);
+        return true;
+    }
+    
+    private void writeAppointment(Object[] row, int index) {
+        long id = (Long) row[0];
+        int doctor = doctorCode((Long) row[1]);
+        long patient = (Long) row[2];
+        int appointmentDay = row[3] != null ? day((LocalDate) row[3]) : AnalyticsSnapshot.NO_DAY;
+        byte status = (byte) ((Appointment.Status) row[4]).ordinal();
+        if (index < 0) {
+            appointments.append(id, doctor, patient, appointmentDay, status);
+        } else {
+            appointments.update(index, id, doctor, patient, appointmentDay, status);
+        }
+    }
+    
+    private int doctorCode(Long doctorId) {
+        return doctorCodes.computeIfAbsent(doctorId, id -> {
+            doctorIds.add(id);
+            return doctorIds.size() - 1;
+        });
+    }
+    
+    private int diagnosisCode(String diagnosis) {
+        String normalized = normalizeDiagnosis(diagnosis);
+        if (normalized == null) {
+            return AnalyticsSnapshot.NO_CODE;
+        }
+        return diagnosisCodes.computeIfAbsent(normalized, value -> {
+            diagnoses.add(value);
+            return diagnoses.size() - 1;
+        });
+    }
+    
+    /**
+     * Diagnoses are free text, so group on the leading clause: up to the first sentence or
+     * list break, lower-cased with whitespace collapsed. "Mild myopia, both eyes." and
+     * "mild  myopia" land in the same group.
+     */
+    static String normalizeDiagnosis(String diagnosis) {
+        if (diagnosis == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder();
+        boolean space = false;
+        for (int i = 0; i < diagnosis.length() && normalized.length() < MAX_DIAGNOSIS_LENGTH; i++) {
+            char c = diagnosis.charAt(i);
+            if (c == '.' || c == ',' || c == ';' || c == '(' || c == '\n' || c == '\r') {
+                break;
+            }
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.length() > 0 ? normalized.toString().toLowerCase(Locale.ROOT) : null;
+    }
+    
+    private static int[] topCodes(long[] totals, int top) {
+        return IntStream.range(0, totals.length)
+                .filter(code -> totals[code] > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer code) -> totals[code]).reversed().thenComparing(code -> code))
+                .limit(top)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+    
+    private <A> A scan(int size, RangeScan<A> leaf, BinaryOperator<A> merge) {
+        if (size == 0) {
+            return leaf.scan(0, 0);
+        }
+        return scanPool.invoke(new ScanTask<>(0, size, leaf, merge));
+    }
+    
+    private static long[] sum(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+    
+    private static double round(double value, int scale) {
+        return Math.round(value * scale) / (double) scale;
+    }
+    
+    private static int day(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+    
+    @FunctionalInterface
+    private interface RangeScan<A> {
+        A scan(int start, int end);
+    }
+    
+    /** Splits a row range in halves down to SCAN_GRAIN rows, scanning leaves and merging partials. */
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int start;
+        private final int end;
+        private final RangeScan<A> leaf;
+        private final BinaryOperator<A> merge;
+        
+        ScanTask(int start, int end, RangeScan<A> leaf, BinaryOperator<A> merge) {
+            this.start = start;
+            this.end = end;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+        
+        @Override
+        protected A compute() {
+            if (end - start <= SCAN_GRAIN) {
+                return leaf.scan(start, end);
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask<A> left = new ScanTask<>(start, middle, leaf, merge);
+            left.fork();
+            A right = new ScanTask<>(middle, end, leaf, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
\ No newline at end of file
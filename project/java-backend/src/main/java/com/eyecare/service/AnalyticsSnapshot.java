@@ -0,0 +1,262 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Appointment;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Read-only columnar copy of medical_records and appointments for aggregate scans. Every
+ * column is a primitive array indexed by row, rows are in id order, and doctors, statuses
+ * and diagnoses are small int codes into the dictionaries held here.
+ *
+ * <p>Successive snapshots share backing arrays: the writer appends past a published size in
+ * place, but copies a column set before changing any row an older snapshot can see.
+ */
+final class AnalyticsSnapshot {
+    
+    static final short NO_IOP = -1;
+    static final int NO_DAY = Integer.MIN_VALUE;
+    static final int NO_CODE = -1;
+    
+    static final AnalyticsSnapshot EMPTY = new AnalyticsSnapshot(new RecordColumns(0).publish(),
+            new AppointmentColumns(0).publish(), new long[0], new String[0], new String[0], null);
+    
+    final RecordColumns records;
+    final AppointmentColumns appointments;
+    final long[] doctorIds;
+    final String[] doctorNames;
+    final String[] diagnoses;
+    final LocalDateTime refreshedAt;
+    
+    private volatile long[] visitKeys;
+    
+    AnalyticsSnapshot(RecordColumns records, AppointmentColumns appointments, long[] doctorIds,
+                      String[] doctorNames, String[] diagnoses, LocalDateTime refreshedAt) {
+        this.records = records;
+        this.appointments = appointments;
+        this.doctorIds = doctorIds;
+        this.doctorNames = doctorNames;
+        this.diagnoses = diagnoses;
+        this.refreshedAt = refreshedAt;
+    }
+    
+    /**
+     * Sorted (patient id, day) keys of every attended visit: completed appointments and
+     * recorded examinations. Built on first use, since only follow-up queries need it.
+     */
+    long[] visitKeys() {
+        long[] keys = visitKeys;
+        if (keys == null) {
+            keys = new long[records.size + appointments.size];
+            int count = 0;
+            for (int i = 0; i < records.size; i++) {
+                if (records.visitDays[i] >= 0) {
+                    keys[count++] = visitKey(records.patients[i], records.visitDays[i]);
+                }
+            }
+            byte completed = (byte) Appointment.Status.COMPLETED.ordinal();
+            for (int i = 0; i < appointments.size; i++) {
+                if (appointments.statuses[i] == completed && appointments.days[i] >= 0) {
+                    keys[count++] = visitKey(appointments.patients[i], appointments.days[i]);
+                }
+            }
+            keys = Arrays.copyOf(keys, count);
+            Arrays.parallelSort(keys);
+            visitKeys = keys;
+        }
+        return keys;
+    }
+    
+    static long visitKey(long patientId, int day) {
+        // Days since 1970 fit in 21 bits until the year 7700
+        return (patientId << 21) | day;
+    }
+    
+    long memoryBytes() {
+        long bytes = records.memoryBytes() + appointments.memoryBytes() + 8L * doctorIds.length;
+        bytes += stringBytes(doctorNames) + stringBytes(diagnoses);
+        long[] keys = visitKeys;
+        return keys != null ? bytes + 8L * keys.length : bytes;
+    }
+    
+    private static long stringBytes(String[] values) {
+        // Reference plus a compact Latin-1 string: 24 byte header and 16 byte array header
+        long bytes = 0;
+        for (String value : values) {
+            bytes += 8 + 40 + value.length();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Medical record columns. The refresh thread appends and patches its own instance;
+     * {@link #publish()} hands out a fixed-size view that readers scan up to {@code size}.
+     */
+    static final class RecordColumns {
+        int size;
+        long[] ids;
+        int[] doctors;
+        long[] patients;
+        int[] visitDays;
+        short[] iopRight;
+        short[] iopLeft;
+        int[] diagnoses;
+        int[] followUpDays;
+        private boolean shared;
+        
+        RecordColumns(int capacity) {
+            ids = new long[capacity];
+            doctors = new int[capacity];
+            patients = new long[capacity];
+            visitDays = new int[capacity];
+            iopRight = new short[capacity];
+            iopLeft = new short[capacity];
+            diagnoses = new int[capacity];
+            followUpDays = new int[capacity];
+        }
+        
+        private RecordColumns(RecordColumns source) {
+            size = source.size;
+            ids = source.ids;
+            doctors = source.doctors;
+            patients = source.patients;
+            visitDays = source.visitDays;
+            iopRight = source.iopRight;
+            iopLeft = source.iopLeft;
+            diagnoses = source.diagnoses;
+            followUpDays = source.followUpDays;
+        }
+        
+        RecordColumns publish() {
+            shared = true;
+            return new RecordColumns(this);
+        }
+        
+        long maxId() {
+            return size > 0 ? ids[size - 1] : 0;
+        }
+        
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+        
+        void append(long id, int doctor, long patient, int visitDay, short right, short left, int diagnosis, int followUpDay) {
+            if (size == ids.length) {
+                resize(Math.max(1024, size + (size >> 1)));
+            }
+            set(size++, id, doctor, patient, visitDay, right, left, diagnosis, followUpDay);
+        }
+        
+        void update(int index, long id, int doctor, long patient, int visitDay, short right, short left, int diagnosis, int followUpDay) {
+            if (shared) {
+                // A published snapshot can see this row, so change a private copy instead
+                resize(ids.length);
+            }
+            set(index, id, doctor, patient, visitDay, right, left, diagnosis, followUpDay);
+        }
+        
+        private void set(int index, long id, int doctor, long patient, int visitDay, short right, short left, int diagnosis, int followUpDay) {
+            ids[index] = id;
+            doctors[index] = doctor;
+            patients[index] = patient;
+            visitDays[index] = visitDay;
+            iopRight[index] = right;
+            iopLeft[index] = left;
+            diagnoses[index] = diagnosis;
+            followUpDays[index] = followUpDay;
+        }
+        
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            doctors = Arrays.copyOf(doctors, capacity);
+            patients = Arrays.copyOf(patients, capacity);
+            visitDays = Arrays.copyOf(visitDays, capacity);
+            iopRight = Arrays.copyOf(iopRight, capacity);
+            iopLeft = Arrays.copyOf(iopLeft, capacity);
+            diagnoses = Arrays.copyOf(diagnoses, capacity);
+            followUpDays = Arrays.copyOf(followUpDays, capacity);
+            shared = false;
+        }
+        
+        long memoryBytes() {
+            return (long) ids.length * (8 + 4 + 8 + 4 + 2 + 2 + 4 + 4);
+        }
+    }
+    
+    /** Appointment columns; statuses are {@link Appointment.Status} ordinals. */
+    static final class AppointmentColumns {
+        int size;
+        long[] ids;
+        int[] doctors;
+        long[] patients;
+        int[] days;
+        byte[] statuses;
+        private boolean shared;
+        
+        AppointmentColumns(int capacity) {
+            ids = new long[capacity];
+            doctors = new int[capacity];
+            patients = new long[capacity];
+            days = new int[capacity];
+            statuses = new byte[capacity];
+        }
+        
+        private AppointmentColumns(AppointmentColumns source) {
+            size = source.size;
+            ids = source.ids;
+            doctors = source.doctors;
+            patients = source.patients;
+            days = source.days;
+            statuses = source.statuses;
+        }
+        
+        AppointmentColumns publish() {
+            shared = true;
+            return new AppointmentColumns(this);
+        }
+        
+        long maxId() {
+            return size > 0 ? ids[size - 1] : 0;
+        }
+        
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+        
+        void append(long id, int doctor, long patient, int day, byte status) {
+            if (size == ids.length) {
+                resize(Math.max(1024, size + (size >> 1)));
+            }
+            set(size++, id, doctor, patient, day, status);
+        }
+        
+        void update(int index, long id, int doctor, long patient, int day, byte status) {
+            if (shared) {
+                resize(ids.length);
+            }
+            set(index, id, doctor, patient, day, status);
+        }
+        
+        private void set(int index, long id, int doctor, long patient, int day, byte status) {
+            ids[index] = id;
+            doctors[index] = doctor;
+            patients[index] = patient;
+            days[index] = day;
+            statuses[index] = status;
+        }
+        
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            doctors = Arrays.copyOf(doctors, capacity);
+            patients = Arrays.copyOf(patients, capacity);
+            days = Arrays.copyOf(days, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            shared = false;
+        }
+        
+        long memoryBytes() {
+            return (long) ids.length * (8 + 4 + 8 + 4 + 1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.util.BoundedMaps;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of the non-cancelled appointment intervals of each doctor, one sorted
+ * array set per (doctor, day). Days are loaded lazily on first lookup, kept in step with
+ * writes made on this node and reloaded once they are older than the schedule cache TTL.
+ *
+ * <p>Advisory only: writes from other nodes are not seen until a day expires, so an answer
+ * may be stale in either direction. Callers that must not double-book confirm against the
+ * database, as {@link BookingService} does.
+ */
+@Component
+public class AppointmentIntervalIndex {
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Value("${appointment.index.max-days:20000}")
+    private int maxDays;
+    
+    @Value("${appointment.schedule-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final ConcurrentHashMap<Long, DaySchedule> days = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> dayByAppointment = new ConcurrentHashMap<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    
+    public boolean hasOverlap(Long doctorId, LocalDate date, LocalTime time, int duration, Long excludeAppointmentId) {
+        int start = time.toSecondOfDay() / 60;
+        return schedule(doctorId, date).overlaps(start, start + duration, excludeAppointmentId);
+    }
+    
+    public void onSaved(Appointment appointment) {
+        writeSequence.incrementAndGet();
+        Long id = appointment.getId();
+        Long previousKey = dayByAppointment.remove(id);
+        if (previousKey != null) {
+            days.computeIfPresent(previousKey, (key, schedule) -> schedule.without(id));
+        }
+        if (appointment.getStatus() == Appointment.Status.CANCELLED) {
+            return;
+        }
+        
+        long key = DayKey.of(appointment.getDoctor().getId(), appointment.getAppointmentDate());
+        int start = appointment.getAppointmentTime().toSecondOfDay() / 60;
+        int end = start + appointment.getDuration();
+        DaySchedule updated = days.computeIfPresent(key, (k, schedule) -> schedule.with(id, start, end));
+        if (updated != null) {
+            dayByAppointment.put(id, key);
+        }
+    }
+    
+    public void onDeleted(Long appointmentId) {
+        writeSequence.incrementAndGet();
+        Long previousKey = dayByAppointment.remove(appointmentId);
+        if (previousKey != null) {
+            days.computeIfPresent(previousKey, (key, schedule) -> schedule.without(appointmentId));
+        }
+    }
+    
+    /** Drops a day so the next lookup reloads it, e.g. after the database disagreed with it. */
+    public void invalidate(Long doctorId, LocalDate date) {
+        writeSequence.incrementAndGet();
+        long key = DayKey.of(doctorId, date);
+        DaySchedule removed = days.remove(key);
+        if (removed != null) {
+            forget(key, removed);
+        }
+    }
+    
+    public long getHits() { return hits.sum(); }
+    
+    public long getLoads() { return loads.sum(); }
+    
+    public int size() { return days.size(); }
+    
+    private DaySchedule schedule(Long doctorId, LocalDate date) {
+        long key = DayKey.of(doctorId, date);
+        long now = System.currentTimeMillis();
+        DaySchedule schedule = days.get(key);
+        if (schedule != null && schedule.expiresAt > now) {
+            hits.increment();
+            return schedule;
+        }
+        if (schedule != null && days.remove(key, schedule)) {
+            forget(key, schedule);
+        }
+        
+        loads.increment();
+        long sequence = writeSequence.get();
+        DaySchedule loaded = DaySchedule.of(appointmentRepository.findActiveIntervals(doctorId, date), now + ttlSeconds * 1000);
+        if (sequence != writeSequence.get()) {
+            // A write raced with the load and may be missing from it; answer without caching
+            return loaded;
+        }
+        if (days.size() >= maxDays) {
+            evict(now);
+        }
+        DaySchedule existing = days.putIfAbsent(key, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        for (long id : loaded.ids) {
+            dayByAppointment.put(id, key);
+        }
+        if (sequence != writeSequence.get()) {
+            // A write slipped in between the check and the put; the writer may have found no day
+            // to update, so drop whatever is cached rather than keep a possibly stale schedule
+            DaySchedule removed = days.remove(key);
+            if (removed != null) {
+                forget(key, removed);
+            }
+        }
+        return loaded;
+    }
+    
+    private void forget(long key, DaySchedule schedule) {
+        for (long id : schedule.ids) {
+            dayByAppointment.remove(id, key);
+        }
+    }
+    
+    private void evict(long now) {
+        BoundedMaps.trim(days, maxDays, schedule -> schedule.expiresAt <= now, this::forget);
+    }
+    
+    /**
+     * Immutable set of [start, end) minute intervals sorted by start. maxEnd[i] is the
+     * latest end among the first i + 1 intervals, which turns an overlap check into one
+     * binary search even when legacy data contains overlapping bookings. Updated copies keep
+     * the expiry of the day they were made from.
+     */
+    static final class DaySchedule {
+        final long[] ids;
+        final int[] starts;
+        final int[] ends;
+        final int[] maxEnd;
+        final long expiresAt;
+        
+        private DaySchedule(long[] ids, int[] starts, int[] ends, long expiresAt) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnd = new int[ends.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnd[i] = max;
+            }
+            this.expiresAt = expiresAt;
+        }
+        
+        static DaySchedule of(List<Object[]> rows, long expiresAt) {
+            DaySchedule schedule = new DaySchedule(new long[0], new int[0], new int[0], expiresAt);
+            for (Object[] row : rows) {
+                int start = ((LocalTime) row[1]).toSecondOfDay() / 60;
+                schedule = schedule.with((Long) row[0], start, start + (Integer) row[2]);
+            }
+            return schedule;
+        }
+        
+        boolean overlaps(int start, int end, Long excludeId) {
+            // Intervals starting at or after 'end' cannot overlap
+            int candidates = upperBound(end - 1);
+            if (candidates == 0 || maxEnd[candidates - 1] <= start) {
+                return false;
+            }
+            if (excludeId == null) {
+                return true;
+            }
+            for (int i = candidates - 1; i >= 0; i--) {
+                if (ends[i] > start && ids[i] != excludeId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        DaySchedule with(long id, int start, int end) {
+            DaySchedule base = without(id);
+            int position = base.upperBound(start);
+            int length = base.ids.length;
+            long[] newIds = new long[length + 1];
+            int[] newStarts = new int[length + 1];
+            int[] newEnds = new int[length + 1];
+            System.arraycopy(base.ids, 0, newIds, 0, position);
+            System.arraycopy(base.starts, 0, newStarts, 0, position);
+            System.arraycopy(base.ends, 0, newEnds, 0, position);
+            newIds[position] = id;
+            newStarts[position] = start;
+            newEnds[position] = end;
+            System.arraycopy(base.ids, position, newIds, position + 1, length - position);
+            System.arraycopy(base.starts, position, newStarts, position + 1, length - position);
+            System.arraycopy(base.ends, position, newEnds, position + 1, length - position);
+            return new DaySchedule(newIds, newStarts, newEnds, expiresAt);
+        }
+        
+        DaySchedule without(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    long[] newIds = new long[ids.length - 1];
+                    int[] newStarts = new int[ids.length - 1];
+                    int[] newEnds = new int[ids.length - 1];
+                    System.arraycopy(ids, 0, newIds, 0, i);
+                    System.arraycopy(starts, 0, newStarts, 0, i);
+                    System.arraycopy(ends, 0, newEnds, 0, i);
+                    System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+                    System.arraycopy(starts, i + 1, newStarts, i, ids.length - i - 1);
+                    System.arraycopy(ends, i + 1, newEnds, i, ids.length - i - 1);
+                    return new DaySchedule(newIds, newStarts, newEnds, expiresAt);
+                }
+            }
+            return this;
+        }
+        
+        /** Number of intervals whose start is <= minute. */
+        private int upperBound(int minute) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= minute) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
\ No newline at end of file
@@ -1,14 +1,18 @@
 package com.eyecare.service;
 
+import com.eyecare.dto.AppointmentCursor;
+import com.eyecare.dto.AppointmentView;
 import com.eyecare.model.Appointment;
 import com.eyecare.repository.AppointmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class AppointmentService {
@@ -16,6 +20,12 @@ public class AppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
     
+    @Autowired
+    private AppointmentIntervalIndex intervalIndex;
+    
+    @Autowired
+    private DailyScheduleCache scheduleCache;
+    
     public List<Appointment> getAllAppointments() {
         return appointmentRepository.findAll();
     }
@@ -36,20 +46,69 @@ public class AppointmentService {
         return appointmentRepository.findByAppointmentDate(date);
     }
     
-    public List<Appointment> getAppointmentsByFilters(LocalDate date, Long doctorId, Long patientId, Appointment.Status status) {
-        return appointmentRepository.findByFilters(date, doctorId, patientId, status);
+    /**
+     * One page of appointments. Unsorted requests page by keyset in (date, time, id) order
+     * starting after {@code after}; an explicit sort returns its first {@code limit} rows.
+     */
+    public List<AppointmentView> getAppointmentsByFilters(LocalDate from, LocalDate to, Long doctorId, Long patientId,
+                                                          Appointment.Status status, Sort sort,
+                                                          AppointmentCursor after, int limit) {
+        if (sort.isSorted()) {
+            return appointmentRepository.findViews(from, to, doctorId, patientId, status, sort, limit);
+        }
+        boolean singleDay = from != null && from.equals(to);
+        if (!singleDay || doctorId == null || patientId != null) {
+            return appointmentRepository.findViewsAfter(from, to, doctorId, patientId, status, after, limit);
+        }
+        
+        // One doctor's day: serve from the schedule cache and filter and page in memory
+        List<AppointmentView> schedule = scheduleCache.get(doctorId, from,
+                () -> appointmentRepository.findViews(from, from, doctorId, null, null, Sort.unsorted()));
+        String statusName = status != null ? status.name().toLowerCase() : null;
+        List<AppointmentView> page = new ArrayList<>();
+        for (AppointmentView view : schedule) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (statusName != null && !view.status().equals(statusName)) {
+                continue;
+            }
+            if (after != null && AppointmentCursor.after(view).compareTo(after) <= 0) {
+                continue;
+            }
+            page.add(view);
+        }
+        return page;
     }
     
-    public boolean hasConflictingAppointment(Long doctorId, LocalDate date, LocalTime time) {
-        List<Appointment> conflicts = appointmentRepository.findConflictingAppointments(doctorId, date, time);
-        return !conflicts.isEmpty();
+    /** Must be consumed and closed inside a transaction. */
+    public Stream<AppointmentView> streamAppointments(LocalDate from, LocalDate to, Long doctorId, Long patientId, Appointment.Status status) {
+        return appointmentRepository.streamViews(from, to, doctorId, patientId, status, Sort.unsorted());
     }
     
     public Appointment saveAppointment(Appointment appointment) {
-        return appointmentRepository.save(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        intervalIndex.onSaved(savedAppointment);
+        scheduleCache.onSaved(savedAppointment);
+        return savedAppointment;
+    }
+    
+    /**
+     * Batch save without conflict checks, for trusted loads such as migrations.
+     * Interactive bookings go through {@link BookingService}.
+     */
+    public List<Appointment> saveAppointments(List<Appointment> appointments) {
+        List<Appointment> savedAppointments = appointmentRepository.saveAll(appointments);
+        for (Appointment savedAppointment : savedAppointments) {
+            intervalIndex.onSaved(savedAppointment);
+            scheduleCache.onSaved(savedAppointment);
+        }
+        return savedAppointments;
     }
     
     public void deleteAppointment(Long id) {
         appointmentRepository.deleteById(id);
+        intervalIndex.onDeleted(id);
+        scheduleCache.onDeleted(id);
     }
 }
\ No newline at end of file
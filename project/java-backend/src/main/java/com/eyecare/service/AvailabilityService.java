@@ -0,0 +1,137 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Doctor;
+import com.eyecare.repository.AppointmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes bookable slots from a doctor's compiled weekly availability minus their
+ * existing non-cancelled appointments.
+ */
+@Service
+public class AvailabilityService {
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    private final ConcurrentHashMap<String, WeeklyAvailability> compiled = new ConcurrentHashMap<>();
+    
+    private final ExecutorService searchExecutor;
+    
+    public AvailabilityService(@Value("${slots.search.parallelism:0}") int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.searchExecutor = Executors.newFixedThreadPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slot-search-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
+    }
+    
+    /**
+     * Free slot start times per date, in date order. Slots are packed back to back from the
+     * start of each free stretch, so they line up with existing bookings.
+     */
+    public Map<LocalDate, List<LocalTime>> findFreeSlots(Doctor doctor, LocalDate from, LocalDate to, int duration) {
+        Map<LocalDate, List<LocalTime>> slots = new LinkedHashMap<>();
+        WeeklyAvailability availability = availabilityOf(doctor);
+        if (availability.isEmpty()) {
+            return slots;
+        }
+        
+        List<Object[]> booked = appointmentRepository.findActiveIntervalsBetween(doctor.getId(), from, to);
+        int slotsNeeded = (duration + WeeklyAvailability.SLOT_MINUTES - 1) / WeeklyAvailability.SLOT_MINUTES;
+        LocalDateTime now = LocalDateTime.now();
+        long[] day = new long[WeeklyAvailability.WORDS_PER_DAY];
+        int next = 0;
+        
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            availability.copyDay(date.getDayOfWeek(), day);
+            
+            // Rows are ordered by date, so each day consumes its own stretch of the list
+            while (next < booked.size() && ((LocalDate) booked.get(next)[0]).isBefore(date)) {
+                next++;
+            }
+            while (next < booked.size() && booked.get(next)[0].equals(date)) {
+                int start = ((LocalTime) booked.get(next)[1]).toSecondOfDay() / 60;
+                int end = start + (Integer) booked.get(next)[2];
+                WeeklyAvailability.clearRange(day, start / WeeklyAvailability.SLOT_MINUTES,
+                        (end + WeeklyAvailability.SLOT_MINUTES - 1) / WeeklyAvailability.SLOT_MINUTES);
+                next++;
+            }
+            
+            if (date.isBefore(now.toLocalDate())) {
+                continue;
+            }
+            if (date.equals(now.toLocalDate())) {
+                int elapsed = now.toLocalTime().toSecondOfDay() / 60;
+                WeeklyAvailability.clearRange(day, 0, (elapsed + WeeklyAvailability.SLOT_MINUTES) / WeeklyAvailability.SLOT_MINUTES);
+            }
+            
+            List<LocalTime> times = null;
+            int runStart = -1;
+            for (int slot = 0; slot <= WeeklyAvailability.SLOTS_PER_DAY; slot++) {
+                boolean free = slot < WeeklyAvailability.SLOTS_PER_DAY && WeeklyAvailability.isSet(day, slot);
+                if (free && runStart < 0) {
+                    runStart = slot;
+                } else if (!free && runStart >= 0) {
+                    for (int start = runStart; start + slotsNeeded <= slot; start += slotsNeeded) {
+                        if (times == null) {
+                            times = new ArrayList<>();
+                        }
+                        times.add(LocalTime.ofSecondOfDay((long) start * WeeklyAvailability.SLOT_MINUTES * 60));
+                    }
+                    runStart = -1;
+                }
+            }
+            if (times != null) {
+                slots.put(date, times);
+            }
+        }
+        return slots;
+    }
+    
+    /**
+     * Runs {@link #findFreeSlots} for every doctor concurrently, one range query each.
+     */
+    public Map<Doctor, Map<LocalDate, List<LocalTime>>> findFreeSlots(List<Doctor> doctors, LocalDate from, LocalDate to, int duration) {
+        List<CompletableFuture<Map<LocalDate, List<LocalTime>>>> futures = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            futures.add(CompletableFuture.supplyAsync(() -> findFreeSlots(doctor, from, to, duration), searchExecutor));
+        }
+        
+        Map<Doctor, Map<LocalDate, List<LocalTime>>> result = new LinkedHashMap<>();
+        for (int i = 0; i < doctors.size(); i++) {
+            result.put(doctors.get(i), futures.get(i).join());
+        }
+        return result;
+    }
+    
+    private WeeklyAvailability availabilityOf(Doctor doctor) {
+        // Most doctors share the default schedule, so compile per distinct definition
+        String key = doctor.getAvailableDays() + "|" + doctor.getAvailableHours();
+        return compiled.computeIfAbsent(key, k -> WeeklyAvailability.parse(doctor.getAvailableDays(), doctor.getAvailableHours()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.eyecare.service;
+
+public class BookingConflictException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public BookingConflictException() {
+        super("Time slot already booked");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Books and reschedules appointments without double-booking a doctor.
+ * Writers are serialized per (doctor, day) on a striped in-process lock, and the conflict
+ * check and insert run in one transaction that holds a row lock on the doctor, so
+ * concurrent bookings from other nodes are serialized by the database as well. The
+ * in-memory interval index only sees this node's writes, so a conflict it reports is
+ * confirmed against the database before the booking is rejected.
+ */
+@Service
+public class BookingService {
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private AppointmentIntervalIndex intervalIndex;
+    
+    @Autowired
+    private DailyScheduleCache scheduleCache;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private final ReentrantLock[] stripes;
+    
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder staleHints = new LongAdder();
+    
+    public BookingService(@Value("${booking.lock-stripes:256}") int stripeCount) {
+        // Round up to a power of two so a stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Saves a new appointment, or throws {@link BookingConflictException} if the doctor is
+     * already booked for any part of its time slot.
+     */
+    public Appointment book(Appointment appointment) {
+        return reserve(appointment, null);
+    }
+    
+    /**
+     * Saves changes to the date, time, duration or status of an existing appointment,
+     * checking the new slot against every other booking of the doctor.
+     */
+    public Appointment reschedule(Appointment appointment) {
+        return reserve(appointment, appointment.getId());
+    }
+    
+    public long getConflicts() { return conflicts.sum(); }
+    
+    public long getContended() { return contended.sum(); }
+    
+    public long getStaleHints() { return staleHints.sum(); }
+    
+    private Appointment reserve(Appointment appointment, Long excludeAppointmentId) {
+        Long doctorId = appointment.getDoctor().getId();
+        LocalDate date = appointment.getAppointmentDate();
+        LocalTime time = appointment.getAppointmentTime();
+        int duration = appointment.getDuration();
+        boolean active = appointment.getStatus() != Appointment.Status.CANCELLED;
+        
+        // Only a hint: another node may have freed the slot since this node loaded the day
+        boolean hinted = active && intervalIndex.hasOverlap(doctorId, date, time, duration, excludeAppointmentId);
+        
+        ReentrantLock lock = stripes[stripe(doctorId, date)];
+        if (!lock.tryLock()) {
+            contended.increment();
+            lock.lock();
+        }
+        try {
+            Appointment saved = transactionTemplate.execute(status -> {
+                doctorRepository.lockById(doctorId);
+                if (active && overlapsStoredBooking(doctorId, date, time, duration, excludeAppointmentId)) {
+                    conflicts.increment();
+                    throw new BookingConflictException();
+                }
+                if (hinted) {
+                    staleHints.increment();
+                    intervalIndex.invalidate(doctorId, date);
+                }
+                return appointmentRepository.save(appointment);
+            });
+            // Only publish to the index and cache once the booking is committed
+            intervalIndex.onSaved(saved);
+            scheduleCache.onSaved(saved);
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean overlapsStoredBooking(Long doctorId, LocalDate date, LocalTime time, int duration, Long excludeAppointmentId) {
+        int start = time.toSecondOfDay() / 60;
+        int end = start + duration;
+        for (Object[] row : appointmentRepository.findActiveIntervals(doctorId, date)) {
+            if (row[0].equals(excludeAppointmentId)) {
+                continue;
+            }
+            int otherStart = ((LocalTime) row[1]).toSecondOfDay() / 60;
+            int otherEnd = otherStart + (Integer) row[2];
+            if (otherStart < end && start < otherEnd) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private int stripe(Long doctorId, LocalDate date) {
+        int hash = Long.hashCode(doctorId * 31 + date.toEpochDay());
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
\ No newline at end of file
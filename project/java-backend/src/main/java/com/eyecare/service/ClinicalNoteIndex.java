@@ -0,0 +1,640 @@
+package com.eyecare.service;
+
+import com.eyecare.model.MedicalRecord;
+import com.eyecare.repository.MedicalRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the free-text fields of medical records, ranked with BM25. New and
+ * changed records collect in a small in-heap buffer that is flushed into an immutable
+ * {@link NoteSegment}; segments are merged once there are too many of them. With
+ * {@code search.notes.dir} set, segments are memory-mapped files listed in a manifest, and a
+ * restart only re-reads records changed since the last flush instead of rebuilding.
+ */
+@Component
+public class ClinicalNoteIndex {
+    
+    private static final int WARM_BATCH_SIZE = 1000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    // Records committed just before a flush can reach the index just after it, so a restart
+    // re-reads a little more than strictly changed since the manifest was written
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+    
+    private static final String MANIFEST = "manifest.properties";
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @Value("${search.notes.flush-docs:1000}")
+    private int flushDocs;
+    
+    @Value("${search.notes.max-segments:8}")
+    private int maxSegments;
+    
+    private Path directory;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<NoteSegment> segments = new ArrayList<>();
+    private final LinkedHashMap<Long, NoteSegment.Document> buffer = new LinkedHashMap<>();
+    private long bufferTokens;
+    private long nextGeneration = 1;
+    private LocalDateTime watermark = EPOCH;
+    
+    private final LongAdder queries = new LongAdder();
+    private long caughtUp;
+    private boolean rebuilt;
+    private int persistFailures;
+    
+    public ClinicalNoteIndex(@Value("${search.notes.dir:}") String directory) {
+        this.directory = directory.isBlank() ? null : Paths.get(directory);
+    }
+    
+    @PostConstruct
+    public void warm() {
+        lock.writeLock().lock();
+        try {
+            if (load()) {
+                caughtUp = scan(watermark.minus(CATCH_UP_MARGIN));
+                // Records deleted while the index was offline only show up as a count mismatch
+                if (liveCount() == medicalRecordRepository.count()) {
+                    flush();
+                    return;
+                }
+                segments.clear();
+                buffer.clear();
+                bufferTokens = 0;
+            }
+            rebuilt = true;
+            scan(EPOCH);
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void index(MedicalRecord record) {
+        NoteSegment.Document document = document(record.getId(), record.getPatient().getId(), record.getDoctor().getId(),
+                record.getVisitDate(), record.getChiefComplaint(), record.getDiagnosis(), record.getTreatmentPlan(),
+                record.getPrescription(), record.getNotes());
+        lock.writeLock().lock();
+        try {
+            put(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long recordId) {
+        lock.writeLock().lock();
+        try {
+            delete(recordId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of the best {@code limit} records, by BM25, containing every term of {@code query};
+     * double-quoted parts must appear as a phrase. Null scope arguments are ignored.
+     */
+    public List<Long> search(String query, Long patientId, Long doctorId, LocalDate from, LocalDate to, int limit) {
+        Query parsed = Query.parse(query);
+        if (parsed == null || limit <= 0) {
+            return List.of();
+        }
+        queries.increment();
+        Scope scope = new Scope(patientId, doctorId,
+                from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE,
+                to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.ORDER);
+        
+        lock.readLock().lock();
+        try {
+            // Collection statistics include deleted documents, as they are only dropped on merge
+            long documents = buffer.size();
+            long tokens = bufferTokens;
+            for (NoteSegment segment : segments) {
+                documents += segment.docCount;
+                tokens += segment.totalTokens;
+            }
+            if (documents == 0) {
+                return List.of();
+            }
+            double averageLength = (double) tokens / documents;
+            double[] idf = new double[parsed.terms.length];
+            for (int t = 0; t < parsed.terms.length; t++) {
+                long df = 0;
+                for (NoteSegment segment : segments) {
+                    int term = segment.term(parsed.terms[t]);
+                    df += term >= 0 ? segment.docFrequency(term) : 0;
+                }
+                for (NoteSegment.Document document : buffer.values()) {
+                    df += contains(document.terms(), parsed.terms[t]) ? 1 : 0;
+                }
+                idf[t] = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            }
+            
+            for (NoteSegment segment : segments) {
+                searchSegment(segment, parsed, scope, idf, averageLength, top, limit);
+            }
+            searchBuffer(parsed, scope, idf, averageLength, top, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().recordId);
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int bufferedCount() {
+        lock.readLock().lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean isPersistent() { return directory != null; }
+    
+    public long getQueries() { return queries.sum(); }
+    
+    public long getCaughtUp() { return caughtUp; }
+    
+    public boolean wasRebuilt() { return rebuilt; }
+    
+    public int getPersistFailures() { return persistFailures; }
+    
+    private void searchSegment(NoteSegment segment, Query query, Scope scope, double[] idf, double averageLength,
+                               PriorityQueue<Hit> top, int limit) {
+        NoteSegment.Postings[] postings = new NoteSegment.Postings[query.terms.length];
+        int lead = 0;
+        int leadFrequency = Integer.MAX_VALUE;
+        for (int t = 0; t < query.terms.length; t++) {
+            int term = segment.term(query.terms[t]);
+            if (term < 0) {
+                return;
+            }
+            postings[t] = segment.postings(term);
+            if (segment.docFrequency(term) < leadFrequency) {
+                lead = t;
+                leadFrequency = segment.docFrequency(term);
+            }
+        }
+        
+        // Walk the rarest term and move the other cursors forward to each of its documents
+        candidates:
+        while (postings[lead].next()) {
+            int doc = postings[lead].doc();
+            if (segment.isDeleted(doc) || !scope.admits(segment.patientId(doc), segment.doctorId(doc), segment.visitDay(doc))) {
+                continue;
+            }
+            for (int t = 0; t < postings.length; t++) {
+                if (t != lead) {
+                    if (!postings[t].advance(doc)) {
+                        return;
+                    }
+                    if (postings[t].doc() != doc) {
+                        continue candidates;
+                    }
+                }
+            }
+            for (int[] phrase : query.phrases) {
+                if (!segmentPhraseMatches(postings, phrase)) {
+                    continue candidates;
+                }
+            }
+            double score = 0;
+            for (int t = 0; t < postings.length; t++) {
+                score += bm25(idf[t], postings[t].freq(), segment.length(doc), averageLength);
+            }
+            offer(top, limit, score, segment.recordId(doc));
+        }
+    }
+    
+    private static boolean segmentPhraseMatches(NoteSegment.Postings[] postings, int[] phrase) {
+        NoteSegment.Postings first = postings[phrase[0]];
+        starts:
+        for (int i = 0; i < first.freq(); i++) {
+            int start = first.position(i);
+            for (int k = 1; k < phrase.length; k++) {
+                if (!postings[phrase[k]].hasPosition(start + k)) {
+                    continue starts;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    private void searchBuffer(Query query, Scope scope, double[] idf, double averageLength,
+                              PriorityQueue<Hit> top, int limit) {
+        int[] freqs = new int[query.terms.length];
+        documents:
+        for (NoteSegment.Document document : buffer.values()) {
+            if (!scope.admits(document.patientId(), document.doctorId(), document.visitDay())) {
+                continue;
+            }
+            String[] tokens = document.terms();
+            for (int t = 0; t < query.terms.length; t++) {
+                freqs[t] = 0;
+                for (String token : tokens) {
+                    if (query.terms[t].equals(token)) {
+                        freqs[t]++;
+                    }
+                }
+                if (freqs[t] == 0) {
+                    continue documents;
+                }
+            }
+            for (int[] phrase : query.phrases) {
+                if (!bufferPhraseMatches(tokens, query.terms, phrase)) {
+                    continue documents;
+                }
+            }
+            double score = 0;
+            for (int t = 0; t < freqs.length; t++) {
+                score += bm25(idf[t], freqs[t], tokens.length, averageLength);
+            }
+            offer(top, limit, score, document.recordId());
+        }
+    }
+    
+    private static boolean bufferPhraseMatches(String[] tokens, String[] terms, int[] phrase) {
+        starts:
+        for (int start = 0; start + phrase.length <= tokens.length; start++) {
+            for (int k = 0; k < phrase.length; k++) {
+                if (!terms[phrase[k]].equals(tokens[start + k])) {
+                    continue starts;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    private static double bm25(double idf, int freq, int length, double averageLength) {
+        return idf * freq * (K1 + 1) / (freq + K1 * (1 - B + B * length / averageLength));
+    }
+    
+    private static void offer(PriorityQueue<Hit> top, int limit, double score, long recordId) {
+        top.add(new Hit(score, recordId));
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+    
+    private static boolean contains(String[] tokens, String term) {
+        for (String token : tokens) {
+            if (term.equals(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private int liveCount() {
+        int live = buffer.size();
+        for (NoteSegment segment : segments) {
+            live += segment.liveCount();
+        }
+        return live;
+    }
+    
+    /** Indexes every record changed after {@code since}; returns how many were read. */
+    private long scan(LocalDateTime since) {
+        long afterId = 0;
+        long read = 0;
+        List<Object[]> batch;
+        do {
+            batch = medicalRecordRepository.findNoteFieldsAfter(afterId, since, PageRequest.of(0, WARM_BATCH_SIZE));
+            for (Object[] row : batch) {
+                afterId = (Long) row[0];
+                put(document(afterId, (Long) row[1], (Long) row[2], (LocalDate) row[3], (String) row[4],
+                        (String) row[5], (String) row[6], (String) row[7], (String) row[8]));
+            }
+            read += batch.size();
+        } while (batch.size() == WARM_BATCH_SIZE);
+        return read;
+    }
+    
+    private void put(NoteSegment.Document document) {
+        delete(document.recordId());
+        buffer.put(document.recordId(), document);
+        bufferTokens += document.terms().length;
+        if (buffer.size() >= flushDocs) {
+            flush();
+        }
+    }
+    
+    private void delete(long recordId) {
+        NoteSegment.Document buffered = buffer.remove(recordId);
+        if (buffered != null) {
+            bufferTokens -= buffered.terms().length;
+            return;
+        }
+        for (NoteSegment segment : segments) {
+            int doc = segment.find(recordId);
+            if (doc >= 0) {
+                segment.delete(doc);
+                return;
+            }
+        }
+    }
+    
+    private void flush() {
+        LocalDateTime flushedAt = LocalDateTime.now();
+        if (!buffer.isEmpty()) {
+            List<NoteSegment.Document> documents = new ArrayList<>(buffer.values());
+            documents.sort(Comparator.comparingLong(NoteSegment.Document::recordId));
+            segments.add(createSegment(documents));
+            buffer.clear();
+            bufferTokens = 0;
+        }
+        segments.removeIf(segment -> segment.liveCount() == 0);
+        if (segments.size() > maxSegments) {
+            List<NoteSegment.Document> documents = new ArrayList<>();
+            for (NoteSegment segment : segments) {
+                documents.addAll(segment.liveDocuments());
+            }
+            documents.sort(Comparator.comparingLong(NoteSegment.Document::recordId));
+            segments.clear();
+            segments.add(createSegment(documents));
+        }
+        watermark = flushedAt;
+        commit();
+    }
+    
+    private NoteSegment createSegment(List<NoteSegment.Document> documents) {
+        long generation = nextGeneration++;
+        if (directory != null) {
+            Path file = directory.resolve(segmentName(generation, ".idx"));
+            try {
+                Files.createDirectories(directory);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    NoteSegment.write(documents, out);
+                }
+                return NoteSegment.open(generation, map(file), new BitSet());
+            } catch (IOException e) {
+                stopPersisting();
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            NoteSegment.write(documents, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return NoteSegment.open(generation, ByteBuffer.wrap(out.toByteArray()), new BitSet());
+    }
+    
+    /** Writes changed deletion sets and then swaps in a new manifest naming the live segments. */
+    private void commit() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Set<String> live = new HashSet<>();
+            List<String> generations = new ArrayList<>();
+            for (NoteSegment segment : segments) {
+                live.add(segmentName(segment.generation, ".idx"));
+                live.add(segmentName(segment.generation, ".del"));
+                generations.add(String.valueOf(segment.generation));
+                if (segment.hasDirtyDeletes()) {
+                    Path deletes = directory.resolve(segmentName(segment.generation, ".del"));
+                    Path temporary = directory.resolve(segmentName(segment.generation, ".del.tmp"));
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                        for (long word : segment.deleted.toLongArray()) {
+                            out.writeLong(word);
+                        }
+                    }
+                    Files.move(temporary, deletes, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    segment.markDeletesClean();
+                }
+            }
+            
+            Properties manifest = new Properties();
+            manifest.setProperty("segments", String.join(",", generations));
+            manifest.setProperty("next-generation", String.valueOf(nextGeneration));
+            manifest.setProperty("watermark", watermark.toString());
+            Path temporary = directory.resolve(MANIFEST + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                manifest.store(out, null);
+            }
+            Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            // Merged-away and emptied segments; a file still mapped elsewhere is retried next time
+            live.add(MANIFEST);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*")) {
+                for (Path file : files) {
+                    if (!live.contains(file.getFileName().toString())) {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException ignored) {
+                            // Left for the next commit
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            stopPersisting();
+        }
+    }
+    
+    /** Opens the segments named by the manifest; false if there is nothing usable on disk. */
+    private boolean load() {
+        if (directory == null || !Files.exists(directory.resolve(MANIFEST))) {
+            return false;
+        }
+        try {
+            Properties manifest = new Properties();
+            try (InputStream in = Files.newInputStream(directory.resolve(MANIFEST))) {
+                manifest.load(in);
+            }
+            for (String value : manifest.getProperty("segments", "").split(",")) {
+                if (value.isBlank()) {
+                    continue;
+                }
+                long generation = Long.parseLong(value);
+                Path deletes = directory.resolve(segmentName(generation, ".del"));
+                BitSet deleted = Files.exists(deletes)
+                        ? BitSet.valueOf(ByteBuffer.wrap(Files.readAllBytes(deletes)).asLongBuffer())
+                        : new BitSet();
+                segments.add(NoteSegment.open(generation, map(directory.resolve(segmentName(generation, ".idx"))), deleted));
+            }
+            nextGeneration = Long.parseLong(manifest.getProperty("next-generation"));
+            watermark = LocalDateTime.parse(manifest.getProperty("watermark"));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // Unreadable or from another version; rebuild from the database
+            segments.clear();
+            return false;
+        }
+    }
+    
+    private void stopPersisting() {
+        // Keep serving from the heap; without a manifest the next start rebuilds
+        persistFailures++;
+        try {
+            Files.deleteIfExists(directory.resolve(MANIFEST));
+        } catch (IOException ignored) {
+            // The stale manifest is caught by the count check on the next start
+        }
+        directory = null;
+    }
+    
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    private static String segmentName(long generation, String extension) {
+        return "segment-" + generation + extension;
+    }
+    
+    private static NoteSegment.Document document(Long recordId, Long patientId, Long doctorId, LocalDate visitDate,
+                                                 String chiefComplaint, String diagnosis, String treatmentPlan,
+                                                 String prescription, String notes) {
+        List<String> terms = new ArrayList<>();
+        addField(chiefComplaint, terms);
+        addField(diagnosis, terms);
+        addField(treatmentPlan, terms);
+        addField(prescription, terms);
+        addField(notes, terms);
+        return new NoteSegment.Document(recordId, patientId, doctorId, (int) visitDate.toEpochDay(),
+                terms.toArray(new String[0]));
+    }
+    
+    /** Appends the terms of one field, after a null gap so phrases cannot span two fields. */
+    private static void addField(String text, List<String> terms) {
+        List<String> analyzed = NoteAnalyzer.analyze(text);
+        if (!analyzed.isEmpty()) {
+            if (!terms.isEmpty()) {
+                terms.add(null);
+            }
+            terms.addAll(analyzed);
+        }
+    }
+    
+    private record Hit(double score, long recordId) {
+        // Lowest score first, and among equal scores the oldest record, so it is evicted first
+        static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::recordId);
+    }
+    
+    private record Scope(Long patientId, Long doctorId, int fromDay, int toDay) {
+        boolean admits(long patient, long doctor, int visitDay) {
+            return (patientId == null || patientId == patient)
+                    && (doctorId == null || doctorId == doctor)
+                    && visitDay >= fromDay && visitDay <= toDay;
+        }
+    }
+    
+    /** Distinct analyzed terms, plus phrases as lists of indexes into them. */
+    private static final class Query {
+        final String[] terms;
+        final List<int[]> phrases;
+        
+        private Query(String[] terms, List<int[]> phrases) {
+            this.terms = terms;
+            this.phrases = phrases;
+        }
+        
+        static Query parse(String query) {
+            if (query == null) {
+                return null;
+            }
+            LinkedHashSet<String> terms = new LinkedHashSet<>();
+            List<List<String>> phrases = new ArrayList<>();
+            String[] parts = query.split("\"", -1);
+            for (int i = 0; i < parts.length; i++) {
+                List<String> analyzed = NoteAnalyzer.analyze(parts[i]);
+                terms.addAll(analyzed);
+                // Odd parts sit between quotes
+                if (i % 2 == 1 && analyzed.size() > 1) {
+                    phrases.add(analyzed);
+                }
+            }
+            if (terms.isEmpty()) {
+                return null;
+            }
+            List<String> ordered = new ArrayList<>(terms);
+            List<int[]> phraseIndexes = new ArrayList<>();
+            for (List<String> phrase : phrases) {
+                phraseIndexes.add(phrase.stream().mapToInt(ordered::indexOf).toArray());
+            }
+            return new Query(ordered.toArray(new String[0]), phraseIndexes);
+        }
+    }
+}
\ No newline at end of file
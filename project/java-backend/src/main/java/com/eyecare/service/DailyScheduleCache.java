@@ -0,0 +1,128 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.AppointmentView;
+import com.eyecare.model.Appointment;
+import com.eyecare.util.BoundedMaps;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of each doctor's appointments for one day, as served to the front desk.
+ * Entries expire after a fixed time and are dropped as soon as an appointment on that day is
+ * saved or deleted; a reschedule invalidates both the old and the new day.
+ */
+@Component
+public class DailyScheduleCache {
+    
+    @Value("${appointment.schedule-cache.max-entries:5000}")
+    private int maxEntries;
+    
+    @Value("${appointment.schedule-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> dayByAppointment = new ConcurrentHashMap<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    public List<AppointmentView> get(Long doctorId, LocalDate date, Supplier<List<AppointmentView>> loader) {
+        long key = DayKey.of(doctorId, date);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.appointments;
+        }
+        if (entry != null && entries.remove(key, entry)) {
+            evictions.increment();
+            forget(entry);
+        }
+        
+        misses.increment();
+        long sequence = writeSequence.get();
+        List<AppointmentView> appointments = List.copyOf(loader.get());
+        if (sequence != writeSequence.get()) {
+            // A write raced with the load and may be missing from it; answer without caching
+            return appointments;
+        }
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        Entry loaded = new Entry(appointments, now + ttlSeconds * 1000);
+        for (AppointmentView appointment : appointments) {
+            dayByAppointment.put(appointment.id(), key);
+        }
+        entries.put(key, loaded);
+        if (sequence != writeSequence.get() && entries.remove(key, loaded)) {
+            // A write landed between the check and the put and may have invalidated nothing
+            forget(loaded);
+        }
+        return appointments;
+    }
+    
+    public void onSaved(Appointment appointment) {
+        writeSequence.incrementAndGet();
+        invalidate(dayByAppointment.remove(appointment.getId()));
+        invalidate(DayKey.of(appointment.getDoctor().getId(), appointment.getAppointmentDate()));
+    }
+    
+    public void onDeleted(Long appointmentId) {
+        writeSequence.incrementAndGet();
+        invalidate(dayByAppointment.remove(appointmentId));
+    }
+    
+    public long getHits() { return hits.sum(); }
+    
+    public long getMisses() { return misses.sum(); }
+    
+    public long getEvictions() { return evictions.sum(); }
+    
+    public long getInvalidations() { return invalidations.sum(); }
+    
+    public int size() { return entries.size(); }
+    
+    private void invalidate(Long key) {
+        if (key == null) {
+            return;
+        }
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            invalidations.increment();
+            forget(removed);
+        }
+    }
+    
+    private void forget(Entry entry) {
+        for (AppointmentView appointment : entry.appointments) {
+            dayByAppointment.remove(appointment.id());
+        }
+    }
+    
+    private void evict(long now) {
+        BoundedMaps.trim(entries, maxEntries, entry -> entry.expiresAt <= now, (key, entry) -> {
+            evictions.increment();
+            forget(entry);
+        });
+    }
+    
+    private static final class Entry {
+        final List<AppointmentView> appointments;
+        final long expiresAt;
+        
+        Entry(List<AppointmentView> appointments, long expiresAt) {
+            this.appointments = appointments;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.eyecare.service;
+
+import java.time.LocalDate;
+
+/** Packs a doctor id and a day into one long, the key of the per-day schedule caches. */
+final class DayKey {
+    
+    private DayKey() {
+    }
+    
+    static long of(Long doctorId, LocalDate date) {
+        // Masked so days before 1970 cannot sign-extend into the doctor id bits
+        return (doctorId << 24) | (date.toEpochDay() & 0xFFFFFF);
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.eyecare.service;
 
+import com.eyecare.dto.DoctorView;
 import com.eyecare.model.Doctor;
 import com.eyecare.repository.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,12 @@ public class DoctorService {
     @Autowired
     private DoctorRepository doctorRepository;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private TypeaheadService typeaheadService;
+    
     public List<Doctor> getAllDoctors() {
         return doctorRepository.findAll();
     }
@@ -30,11 +37,25 @@ public class DoctorService {
         return doctorRepository.findBySpecialization(specialization);
     }
     
+    public List<DoctorView> getActiveDoctorViews(String specialization) {
+        return doctorRepository.findActiveViews(specialization);
+    }
+    
     public Doctor saveDoctor(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        Doctor savedDoctor = doctorRepository.save(doctor);
+        typeaheadService.indexDoctor(savedDoctor);
+        return savedDoctor;
+    }
+    
+    public List<Doctor> saveDoctors(List<Doctor> doctors) {
+        List<Doctor> savedDoctors = doctorRepository.saveAll(doctors);
+        savedDoctors.forEach(typeaheadService::indexDoctor);
+        return savedDoctors;
     }
     
     public void deleteDoctor(Long id) {
         doctorRepository.deleteById(id);
+        profileResolver.evictDoctor(id);
+        typeaheadService.removeDoctor(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.eyecare.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+    
+    private final MediaType mediaType;
+    private final String extension;
+    
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+    
+    public MediaType getMediaType() { return mediaType; }
+    
+    public String getExtension() { return extension; }
+    
+    /** Returns null for anything other than "ndjson" or "csv". */
+    public static ExportFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.eyecare.service;
 
+import com.eyecare.dto.MedicalRecordCursor;
+import com.eyecare.dto.MedicalRecordListView;
+import com.eyecare.dto.MedicalRecordView;
+import com.eyecare.dto.VitalsTrend;
 import com.eyecare.model.MedicalRecord;
 import com.eyecare.repository.MedicalRecordRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class MedicalRecordService {
@@ -15,6 +21,9 @@ public class MedicalRecordService {
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
     
+    @Autowired
+    private ClinicalNoteIndex noteIndex;
+    
     public List<MedicalRecord> getAllMedicalRecords() {
         return medicalRecordRepository.findAll();
     }
@@ -23,6 +32,11 @@ public class MedicalRecordService {
         return medicalRecordRepository.findById(id);
     }
     
+    /** The record with its patient and doctor names loaded, for the detail view. */
+    public Optional<MedicalRecord> getMedicalRecordDetail(Long id) {
+        return medicalRecordRepository.findDetailById(id);
+    }
+    
     public List<MedicalRecord> getMedicalRecordsByPatient(Long patientId) {
         return medicalRecordRepository.findByPatientIdOrderByVisitDateDesc(patientId);
     }
@@ -31,15 +45,90 @@ public class MedicalRecordService {
         return medicalRecordRepository.findByDoctorId(doctorId);
     }
     
-    public List<MedicalRecord> getMedicalRecordsByFilters(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate) {
-        return medicalRecordRepository.findByFilters(patientId, doctorId, startDate, endDate);
+    /**
+     * One page of medical records. Unsorted requests page by keyset, newest visit first,
+     * starting after {@code after}; an explicit sort returns its first {@code limit} rows.
+     */
+    public List<MedicalRecordListView> getMedicalRecordsByFilters(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                                                  Integer iopAbove, Sort sort, MedicalRecordCursor after, int limit) {
+        if (sort.isSorted()) {
+            return medicalRecordRepository.findViews(patientId, doctorId, startDate, endDate, iopAbove, sort, limit);
+        }
+        return medicalRecordRepository.findViewsAfter(patientId, doctorId, startDate, endDate, iopAbove, after, limit);
+    }
+    
+    /**
+     * Records whose clinical text matches {@code query}, best BM25 match first, limited to the
+     * given patient, doctor and visit date range where those are not null.
+     */
+    public List<MedicalRecordListView> searchMedicalRecords(String query, Long patientId, Long doctorId,
+                                                            LocalDate startDate, LocalDate endDate, int limit) {
+        return medicalRecordRepository.findViewsByIds(noteIndex.search(query, patientId, doctorId, startDate, endDate, limit));
+    }
+    
+    /** Must be consumed and closed inside a transaction. */
+    public Stream<MedicalRecordView> streamMedicalRecords(Long patientId, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        return medicalRecordRepository.streamViews(patientId, doctorId, startDate, endDate, Sort.unsorted());
+    }
+    
+    /** Per-eye pressure and acuity series for the patient's records, oldest visit first. */
+    public VitalsTrend getVitalsTrend(Long patientId) {
+        List<Object[]> rows = medicalRecordRepository.findVitalsByPatientId(patientId);
+        return new VitalsTrend(patientId,
+                new VitalsTrend.Eye(iopSeries(rows, 1), acuitySeries(rows, 3)),
+                new VitalsTrend.Eye(iopSeries(rows, 2), acuitySeries(rows, 4)));
     }
     
     public MedicalRecord saveMedicalRecord(MedicalRecord medicalRecord) {
-        return medicalRecordRepository.save(medicalRecord);
+        VitalsParser.apply(medicalRecord);
+        MedicalRecord savedRecord = medicalRecordRepository.save(medicalRecord);
+        TransactionHooks.afterCommit(() -> noteIndex.index(savedRecord));
+        return savedRecord;
+    }
+    
+    public List<MedicalRecord> saveMedicalRecords(List<MedicalRecord> medicalRecords) {
+        medicalRecords.forEach(VitalsParser::apply);
+        List<MedicalRecord> savedRecords = medicalRecordRepository.saveAll(medicalRecords);
+        TransactionHooks.afterCommit(() -> savedRecords.forEach(noteIndex::index));
+        return savedRecords;
     }
     
     public void deleteMedicalRecord(Long id) {
         medicalRecordRepository.deleteById(id);
+        noteIndex.remove(id);
+    }
+    
+    private static VitalsTrend.IopSeries iopSeries(List<Object[]> rows, int column) {
+        int count = 0;
+        for (Object[] row : rows) {
+            count += row[column] != null ? 1 : 0;
+        }
+        String[] dates = new String[count];
+        short[] values = new short[count];
+        int i = 0;
+        for (Object[] row : rows) {
+            if (row[column] != null) {
+                dates[i] = row[0].toString();
+                values[i++] = (Short) row[column];
+            }
+        }
+        return new VitalsTrend.IopSeries(dates, values);
+    }
+    
+    private static VitalsTrend.AcuitySeries acuitySeries(List<Object[]> rows, int column) {
+        int count = 0;
+        for (Object[] row : rows) {
+            count += row[column] != null ? 1 : 0;
+        }
+        String[] dates = new String[count];
+        double[] values = new double[count];
+        int i = 0;
+        for (Object[] row : rows) {
+            if (row[column] != null) {
+                dates[i] = row[0].toString();
+                values[i++] = (Double) row[column];
+            }
+        }
+        return new VitalsTrend.AcuitySeries(dates, values);
     }
 }
\ No newline at end of file
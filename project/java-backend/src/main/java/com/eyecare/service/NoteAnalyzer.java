@@ -0,0 +1,165 @@
+package com.eyecare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns clinical free text into index terms: lower-cased letter and digit runs, minus a few
+ * English stop words, with inflectional suffixes removed by step 1 of the Porter stemmer so
+ * that "detached" and "detaching" both index as "detach".
+ */
+final class NoteAnalyzer {
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "been", "by", "for", "from", "had", "has", "have",
+            "he", "her", "his", "in", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their",
+            "this", "to", "was", "were", "which", "with");
+    
+    private NoteAnalyzer() {
+    }
+    
+    static void analyze(String text, List<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (word.length() <= NoteSegment.MAX_TERM_LENGTH && !STOP_WORDS.contains(word)) {
+                    terms.add(stem(word));
+                }
+                start = -1;
+            }
+        }
+    }
+    
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, terms);
+        return terms;
+    }
+    
+    /** Porter step 1 (plurals, -ed, -ing, trailing y); words with digits are left alone. */
+    static String stem(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) {
+                return word;
+            }
+        }
+        StringBuilder b = new StringBuilder(word);
+        
+        // Step 1a
+        if (endsWith(b, "sses") || endsWith(b, "ies")) {
+            b.setLength(b.length() - 2);
+        } else if (b.charAt(b.length() - 1) == 's' && b.charAt(b.length() - 2) != 's') {
+            b.setLength(b.length() - 1);
+        }
+        
+        // Step 1b
+        if (endsWith(b, "eed")) {
+            if (measure(b, b.length() - 3) > 0) {
+                b.setLength(b.length() - 1);
+            }
+        } else {
+            int suffix = endsWith(b, "ed") ? 2 : endsWith(b, "ing") ? 3 : 0;
+            if (suffix > 0 && hasVowel(b, b.length() - suffix)) {
+                b.setLength(b.length() - suffix);
+                if (endsWith(b, "at") || endsWith(b, "bl") || endsWith(b, "iz")) {
+                    b.append('e');
+                } else if (endsWithDoubleConsonant(b)) {
+                    char last = b.charAt(b.length() - 1);
+                    if (last != 'l' && last != 's' && last != 'z') {
+                        b.setLength(b.length() - 1);
+                    }
+                } else if (measure(b, b.length()) == 1 && endsWithCvc(b)) {
+                    b.append('e');
+                }
+            }
+        }
+        
+        // Step 1c
+        if (b.charAt(b.length() - 1) == 'y' && hasVowel(b, b.length() - 1)) {
+            b.setCharAt(b.length() - 1, 'i');
+        }
+        return b.toString();
+    }
+    
+    private static boolean endsWith(StringBuilder b, String suffix) {
+        int offset = b.length() - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (b.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isConsonant(StringBuilder b, int i) {
+        switch (b.charAt(i)) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !isConsonant(b, i - 1);
+            default:
+                return true;
+        }
+    }
+    
+    /** Number of vowel-consonant sequences in the first {@code length} characters. */
+    private static int measure(StringBuilder b, int length) {
+        int m = 0;
+        int i = 0;
+        while (i < length && isConsonant(b, i)) {
+            i++;
+        }
+        while (i < length) {
+            while (i < length && !isConsonant(b, i)) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            while (i < length && isConsonant(b, i)) {
+                i++;
+            }
+            m++;
+        }
+        return m;
+    }
+    
+    private static boolean hasVowel(StringBuilder b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isConsonant(b, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean endsWithDoubleConsonant(StringBuilder b) {
+        int n = b.length();
+        return n >= 2 && b.charAt(n - 1) == b.charAt(n - 2) && isConsonant(b, n - 1);
+    }
+    
+    /** Consonant-vowel-consonant ending where the last consonant is not w, x or y, as in "hop". */
+    private static boolean endsWithCvc(StringBuilder b) {
+        int n = b.length();
+        if (n < 3 || !isConsonant(b, n - 1) || isConsonant(b, n - 2) || !isConsonant(b, n - 3)) {
+            return false;
+        }
+        char last = b.charAt(n - 1);
+        return last != 'w' && last != 'x' && last != 'y';
+    }
+}
\ No newline at end of file
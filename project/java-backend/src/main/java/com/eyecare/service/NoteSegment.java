@@ -0,0 +1,333 @@
+package com.eyecare.service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable slice of the clinical note index. The layout is a fixed header, one column per
+ * document attribute, a sorted term dictionary and then the postings of every term as
+ * (document, frequency, positions...) runs in document order. Only the dictionary is copied
+ * onto the heap; columns and postings are read in place from the (usually memory-mapped)
+ * buffer. Deletions live beside the segment in a bit set.
+ */
+final class NoteSegment {
+    
+    private static final int MAGIC = 0x4E4F5445;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    
+    /** Longest term kept, in characters; anything longer is not a clinical word. */
+    static final int MAX_TERM_LENGTH = 64;
+    
+    final long generation;
+    final int docCount;
+    final long totalTokens;
+    final BitSet deleted;
+    
+    private final ByteBuffer data;
+    private final String[] terms;
+    private final int[] docFrequencies;
+    private final int[] postingsOffsets;
+    private int liveCount;
+    private boolean deletesDirty;
+    
+    private NoteSegment(long generation, ByteBuffer data, BitSet deleted) {
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a note index segment");
+        }
+        this.generation = generation;
+        this.data = data;
+        this.docCount = data.getInt(8);
+        this.totalTokens = data.getLong(16);
+        this.deleted = deleted;
+        this.liveCount = docCount - deleted.cardinality();
+        
+        int termCount = data.getInt(12);
+        terms = new String[termCount];
+        docFrequencies = new int[termCount];
+        postingsOffsets = new int[termCount];
+        int offset = HEADER_BYTES + 32 * docCount;
+        byte[] bytes = new byte[MAX_TERM_LENGTH * 4];
+        for (int i = 0; i < termCount; i++) {
+            int length = data.getShort(offset);
+            data.get(offset + 2, bytes, 0, length);
+            terms[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            offset += 2 + length;
+            docFrequencies[i] = data.getInt(offset);
+            postingsOffsets[i] = data.getInt(offset + 4);
+            offset += 8;
+        }
+    }
+    
+    static NoteSegment open(long generation, ByteBuffer data, BitSet deleted) {
+        return new NoteSegment(generation, data, deleted);
+    }
+    
+    long recordId(int doc) { return data.getLong(HEADER_BYTES + 8 * doc); }
+    
+    long patientId(int doc) { return data.getLong(HEADER_BYTES + 8 * docCount + 8 * doc); }
+    
+    long doctorId(int doc) { return data.getLong(HEADER_BYTES + 16 * docCount + 8 * doc); }
+    
+    int visitDay(int doc) { return data.getInt(HEADER_BYTES + 24 * docCount + 4 * doc); }
+    
+    int length(int doc) { return data.getInt(HEADER_BYTES + 28 * docCount + 4 * doc); }
+    
+    int liveCount() { return liveCount; }
+    
+    boolean isDeleted(int doc) { return deleted.get(doc); }
+    
+    boolean hasDirtyDeletes() { return deletesDirty; }
+    
+    void markDeletesClean() { deletesDirty = false; }
+    
+    /** Ordinal of the live document for {@code recordId}, or -1. Record ids are stored sorted. */
+    int find(long recordId) {
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = recordId(mid);
+            if (id < recordId) {
+                low = mid + 1;
+            } else if (id > recordId) {
+                high = mid - 1;
+            } else {
+                return deleted.get(mid) ? -1 : mid;
+            }
+        }
+        return -1;
+    }
+    
+    void delete(int doc) {
+        if (!deleted.get(doc)) {
+            deleted.set(doc);
+            liveCount--;
+            deletesDirty = true;
+        }
+    }
+    
+    /** Index of {@code term} in the dictionary, or -1. */
+    int term(String term) {
+        int index = Arrays.binarySearch(terms, term);
+        return index >= 0 ? index : -1;
+    }
+    
+    int docFrequency(int term) { return docFrequencies[term]; }
+    
+    Postings postings(int term) {
+        return new Postings(postingsOffsets[term], docFrequencies[term]);
+    }
+    
+    /** Rebuilds the term sequence of every live document, for merging. */
+    List<Document> liveDocuments() {
+        String[][] tokens = new String[docCount][];
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!deleted.get(doc)) {
+                tokens[doc] = new String[length(doc)];
+            }
+        }
+        for (int term = 0; term < terms.length; term++) {
+            Postings postings = postings(term);
+            while (postings.next()) {
+                String[] docTokens = tokens[postings.doc()];
+                if (docTokens != null) {
+                    for (int i = 0; i < postings.freq(); i++) {
+                        docTokens[postings.position(i)] = terms[term];
+                    }
+                }
+            }
+        }
+        List<Document> documents = new ArrayList<>(liveCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (tokens[doc] != null) {
+                documents.add(new Document(recordId(doc), patientId(doc), doctorId(doc), visitDay(doc), tokens[doc]));
+            }
+        }
+        return documents;
+    }
+    
+    /**
+     * Writes {@code documents}, which must be sorted by record id, in segment layout.
+     * Returns the number of bytes written.
+     */
+    static long write(List<Document> documents, OutputStream target) throws IOException {
+        Map<String, TermPostings> inverted = new HashMap<>();
+        long totalTokens = 0;
+        for (int doc = 0; doc < documents.size(); doc++) {
+            String[] tokens = documents.get(doc).terms();
+            totalTokens += tokens.length;
+            for (int position = 0; position < tokens.length; position++) {
+                if (tokens[position] == null) {
+                    continue;
+                }
+                inverted.computeIfAbsent(tokens[position], t -> new TermPostings()).add(doc, position);
+            }
+        }
+        String[] sortedTerms = inverted.keySet().toArray(new String[0]);
+        Arrays.sort(sortedTerms);
+        byte[][] encoded = new byte[sortedTerms.length][];
+        
+        long dictionaryBytes = 0;
+        for (int i = 0; i < sortedTerms.length; i++) {
+            encoded[i] = sortedTerms[i].getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += 2 + encoded[i].length + 8;
+        }
+        long offset = HEADER_BYTES + 32L * documents.size() + dictionaryBytes;
+        long[] offsets = new long[sortedTerms.length];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            offsets[i] = offset;
+            TermPostings postings = inverted.get(sortedTerms[i]);
+            offset += 8L * postings.docCount + 4L * postings.positionCount;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Note index segment would exceed 2 GB");
+        }
+        
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(documents.size());
+        out.writeInt(sortedTerms.length);
+        out.writeLong(totalTokens);
+        for (Document document : documents) {
+            out.writeLong(document.recordId());
+        }
+        for (Document document : documents) {
+            out.writeLong(document.patientId());
+        }
+        for (Document document : documents) {
+            out.writeLong(document.doctorId());
+        }
+        for (Document document : documents) {
+            out.writeInt(document.visitDay());
+        }
+        for (Document document : documents) {
+            out.writeInt(document.terms().length);
+        }
+        for (int i = 0; i < sortedTerms.length; i++) {
+            out.writeShort(encoded[i].length);
+            out.write(encoded[i]);
+            out.writeInt(inverted.get(sortedTerms[i]).docCount);
+            out.writeInt((int) offsets[i]);
+        }
+        for (String term : sortedTerms) {
+            inverted.get(term).writeTo(out);
+        }
+        out.flush();
+        return offset;
+    }
+    
+    /**
+     * One indexed medical record: its scoping attributes and analyzed terms in order. A null
+     * term is a gap between fields; it takes a position but is not indexed.
+     */
+    record Document(long recordId, long patientId, long doctorId, int visitDay, String[] terms) {
+    }
+    
+    /**
+     * Forward-only cursor over one term's postings. Positions of the current document are
+     * read on demand.
+     */
+    final class Postings {
+        private int offset;
+        private int remaining;
+        private int doc = -1;
+        private int freq;
+        
+        private Postings(int offset, int count) {
+            this.offset = offset;
+            this.remaining = count;
+        }
+        
+        boolean next() {
+            if (doc >= 0) {
+                offset += 8 + 4 * freq;
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            doc = data.getInt(offset);
+            freq = data.getInt(offset + 4);
+            return true;
+        }
+        
+        /** Moves to the first document at or after {@code target}; false when none is left. */
+        boolean advance(int target) {
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int doc() { return doc; }
+        
+        int freq() { return freq; }
+        
+        int position(int i) { return data.getInt(offset + 8 + 4 * i); }
+        
+        boolean hasPosition(int position) {
+            int low = 0;
+            int high = freq - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int value = position(mid);
+                if (value < position) {
+                    low = mid + 1;
+                } else if (value > position) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    private static final class TermPostings {
+        private int[] docs = new int[4];
+        private int[] positions = new int[4];
+        private int docCount;
+        private int positionCount;
+        
+        void add(int doc, int position) {
+            if (docCount == 0 || docs[2 * (docCount - 1)] != doc) {
+                if (2 * docCount == docs.length) {
+                    docs = Arrays.copyOf(docs, docs.length * 2);
+                }
+                docs[2 * docCount] = doc;
+                docs[2 * docCount + 1] = 0;
+                docCount++;
+            }
+            docs[2 * (docCount - 1) + 1]++;
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[positionCount++] = position;
+        }
+        
+        void writeTo(DataOutputStream out) throws IOException {
+            int next = 0;
+            for (int i = 0; i < docCount; i++) {
+                int freq = docs[2 * i + 1];
+                out.writeInt(docs[2 * i]);
+                out.writeInt(freq);
+                for (int j = 0; j < freq; j++) {
+                    out.writeInt(positions[next++]);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,400 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.RegisterRequest;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk patient onboarding. Rows are streamed from a JSON array or CSV body, validated,
+ * hashed in parallel and saved in JDBC batches one chunk at a time, so memory stays
+ * bounded by the chunk size no matter how large the upload is.
+ */
+@Service
+public class PatientImportService {
+    
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private UserIdentityFilter identityFilter;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private PatientService patientService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+    
+    private final ForkJoinPool hashingPool;
+    
+    public PatientImportService(@Value("${import.hashing.parallelism:0}") int parallelism) {
+        // Separate from the login hashing pool so an import never causes 503s on /auth/login
+        this.hashingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+    
+    public Result importJson(InputStream input) throws IOException {
+        Result result = new Result();
+        ImportBatch batch = new ImportBatch(result);
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of registration rows");
+            }
+            int rowNumber = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                rowNumber++;
+                JsonNode node = parser.readValueAsTree();
+                RegisterRequest request;
+                try {
+                    request = objectMapper.treeToValue(node, RegisterRequest.class);
+                } catch (IOException | IllegalArgumentException e) {
+                    result.fail(rowNumber, "Malformed row");
+                    continue;
+                }
+                batch.add(rowNumber, request);
+            }
+        }
+        batch.flush();
+        return result;
+    }
+    
+    public Result importCsv(InputStream input) throws IOException {
+        Result result = new Result();
+        ImportBatch batch = new ImportBatch(result);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            CsvRecord headerRecord = readCsvRecord(reader);
+            if (headerRecord == null) {
+                return result;
+            }
+            List<String> header = headerRecord.fields().stream()
+                    .map(name -> name.replace("_", "").trim().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toList());
+            
+            int rowNumber = 0;
+            CsvRecord record;
+            while ((record = readCsvRecord(reader)) != null) {
+                if (record.blank()) {
+                    continue;
+                }
+                rowNumber++;
+                if (record.unterminated()) {
+                    // The open quote swallowed the rest of the upload, so no later row can be trusted
+                    result.fail(rowNumber, "Unterminated quoted field");
+                    break;
+                }
+                RegisterRequest request;
+                try {
+                    request = toRequest(header, record.fields());
+                } catch (RuntimeException e) {
+                    result.fail(rowNumber, "Malformed row");
+                    continue;
+                }
+                batch.add(rowNumber, request);
+            }
+        }
+        batch.flush();
+        return result;
+    }
+    
+    private RegisterRequest toRequest(List<String> header, List<String> values) {
+        RegisterRequest request = new RegisterRequest();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (header.get(i)) {
+                case "username": request.setUsername(value); break;
+                case "email": request.setEmail(value); break;
+                case "password": request.setPassword(value); break;
+                case "firstname": request.setFirstName(value); break;
+                case "lastname": request.setLastName(value); break;
+                case "phone": request.setPhone(value); break;
+                case "dateofbirth": request.setDateOfBirth(value != null ? LocalDate.parse(value) : null); break;
+                case "address": request.setAddress(value); break;
+                case "role":
+                    if (value != null) {
+                        request.setRole(User.Role.valueOf(value.toUpperCase(Locale.ROOT)));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return request;
+    }
+    
+    /**
+     * Reads the next CSV record, or null at the end of input. Line breaks inside a quoted
+     * field belong to the field, so a record may span several lines.
+     */
+    private static CsvRecord readCsvRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean sawQuote = false;
+        for (; c >= 0; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        current.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    current.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                sawQuote = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else {
+                current.append((char) c);
+            }
+        }
+        fields.add(current.toString());
+        boolean blank = !sawQuote && fields.size() == 1 && fields.get(0).isBlank();
+        return new CsvRecord(fields, blank, quoted);
+    }
+    
+    private void insertChunk(List<Row> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<User> users = new ArrayList<>(rows.size());
+            List<Patient> patients = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                RegisterRequest request = row.request;
+                User user = new User(request.getUsername(), request.getEmail(), row.passwordHash,
+                        User.Role.PATIENT, request.getFirstName(), request.getLastName());
+                user.setPhone(request.getPhone());
+                user.setDateOfBirth(request.getDateOfBirth());
+                user.setAddress(request.getAddress());
+                users.add(user);
+                patients.add(new Patient(user));
+            }
+            userService.saveUsers(users);
+            patientService.savePatients(patients);
+            
+            // The request-scoped persistence context would otherwise hold every imported row
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+    
+    private final class ImportBatch {
+        private final Result result;
+        private final List<Row> pending = new ArrayList<>();
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+        
+        ImportBatch(Result result) {
+            this.result = result;
+        }
+        
+        void add(int rowNumber, RegisterRequest request) {
+            if (request.getRole() != User.Role.PATIENT) {
+                result.fail(rowNumber, "Only patient rows can be imported");
+                return;
+            }
+            Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<RegisterRequest> violation = violations.iterator().next();
+                result.fail(rowNumber, violation.getPropertyPath() + " " + violation.getMessage());
+                return;
+            }
+            if (!seenUsernames.add(request.getUsername())) {
+                result.fail(rowNumber, "Duplicate username in upload");
+                return;
+            }
+            if (!seenEmails.add(request.getEmail())) {
+                result.fail(rowNumber, "Duplicate email in upload");
+                return;
+            }
+            pending.add(new Row(rowNumber, request));
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+        
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Row> rows = rejectExisting(pending);
+            pending.clear();
+            if (rows.isEmpty()) {
+                return;
+            }
+            
+            hashPasswords(rows);
+            try {
+                insertChunk(rows);
+                rows.forEach(this::accept);
+            } catch (RuntimeException e) {
+                // Fall back to row-at-a-time so one bad row does not sink the whole chunk
+                for (Row row : rows) {
+                    try {
+                        insertChunk(List.of(row));
+                        accept(row);
+                    } catch (RuntimeException rowError) {
+                        result.fail(row.rowNumber, "Could not be inserted");
+                    }
+                }
+            }
+        }
+        
+        private void accept(Row row) {
+            result.imported++;
+        }
+        
+        private List<Row> rejectExisting(List<Row> rows) {
+            List<String> usernames = new ArrayList<>();
+            List<String> emails = new ArrayList<>();
+            for (Row row : rows) {
+                if (identityFilter.mightContainUsername(row.request.getUsername())
+                        || identityFilter.mightContainEmail(row.request.getEmail())) {
+                    usernames.add(row.request.getUsername());
+                    emails.add(row.request.getEmail());
+                }
+            }
+            if (usernames.isEmpty()) {
+                return new ArrayList<>(rows);
+            }
+            
+            Set<String> takenUsernames = new HashSet<>();
+            Set<String> takenEmails = new HashSet<>();
+            for (Object[] match : userRepository.findIdentityConflictsIn(usernames, emails)) {
+                takenUsernames.add((String) match[0]);
+                takenEmails.add((String) match[1]);
+            }
+            
+            List<Row> accepted = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                if (takenUsernames.contains(row.request.getUsername())) {
+                    result.fail(row.rowNumber, "Username is already taken");
+                } else if (takenEmails.contains(row.request.getEmail())) {
+                    result.fail(row.rowNumber, "Email is already in use");
+                } else {
+                    accepted.add(row);
+                }
+            }
+            return accepted;
+        }
+        
+        private void hashPasswords(List<Row> rows) {
+            try {
+                hashingPool.submit(() -> rows.parallelStream()
+                        .forEach(row -> row.passwordHash = passwordEncoder.encode(row.request.getPassword())))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+    
+    private record CsvRecord(List<String> fields, boolean blank, boolean unterminated) {
+    }
+    
+    private static final class Row {
+        final int rowNumber;
+        final RegisterRequest request;
+        String passwordHash;
+        
+        Row(int rowNumber, RegisterRequest request) {
+            this.rowNumber = rowNumber;
+            this.request = request;
+        }
+    }
+    
+    public static final class Result {
+        private int imported;
+        private int failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        
+        void fail(int rowNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("row", rowNumber);
+                error.put("error", message);
+                errors.add(error);
+            }
+        }
+        
+        public int getImported() { return imported; }
+        
+        public int getFailed() { return failed; }
+        
+        public List<Map<String, Object>> getErrors() { return errors; }
+    }
+}
\ No newline at end of file
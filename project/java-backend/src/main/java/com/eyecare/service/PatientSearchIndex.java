@@ -0,0 +1,417 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory trigram index over patient first name, last name, email and phone. Each trigram
+ * maps to a sorted int array of patient ids, so a lookup intersects a few short arrays and
+ * verifies the survivors instead of scanning every patient with LIKE '%term%'.
+ */
+@Component
+public class PatientSearchIndex {
+    
+    private static final int WARM_BATCH_SIZE = 10000;
+    private static final int MIN_TERM_LENGTH = 3;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+    
+    // Normalized "first\nlast\nemail\nphone" per patient id, used to verify and rank candidates
+    private String[] documents = new String[1024];
+    private int size;
+    
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    
+    @PostConstruct
+    public void warm() {
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            batch = patientRepository.findSearchFieldsAfter(afterId, PageRequest.of(0, WARM_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : batch) {
+                    afterId = (Long) row[0];
+                    put(afterId, document((String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (batch.size() == WARM_BATCH_SIZE);
+    }
+    
+    public void index(Patient patient) {
+        User user = patient.getUser();
+        String document = document(user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhone());
+        lock.writeLock().lock();
+        try {
+            put(patient.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long patientId) {
+        lock.writeLock().lock();
+        try {
+            int id = Math.toIntExact(patientId);
+            if (id < documents.length && documents[id] != null) {
+                forEachTrigram(documents[id], key -> postings.get(key).remove(id));
+                documents[id] = null;
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of the best {@code limit} patients matching every whitespace-separated term of
+     * {@code query} as a substring of one of the indexed fields. Returns null when no term is
+     * long enough to look up, in which case the caller should fall back to the database.
+     */
+    public long[] search(String query, int limit) {
+        TopK top = scan(query, limit, false);
+        return top == null ? null : top.ids();
+    }
+    
+    /** Number of patients {@link #search} would match, or -1 if it would fall back. */
+    public int count(String query) {
+        TopK top = scan(query, 0, true);
+        return top == null ? -1 : top.matched();
+    }
+    
+    /** The best {@code limit} matches, counting every match when exhaustive; null to fall back. */
+    private TopK scan(String query, int limit, boolean exhaustive) {
+        List<String> terms = terms(query);
+        Set<Long> keys = new LinkedHashSet<>();
+        for (String term : terms) {
+            if (term.length() >= MIN_TERM_LENGTH) {
+                forEachTrigram(term, keys::add);
+            }
+        }
+        if (keys.isEmpty()) {
+            fallbacks.increment();
+            return null;
+        }
+        queries.increment();
+        int maxScore = 3 * terms.size();
+        
+        lock.readLock().lock();
+        try {
+            // Sized under the lock, as writers change the patient count
+            TopK top = new TopK(exhaustive ? 0 : Math.min(limit, size));
+            if (!exhaustive && top.capacity() == 0) {
+                return top;
+            }
+            Postings[] lists = new Postings[keys.size()];
+            int n = 0;
+            for (Long key : keys) {
+                Postings list = postings.get(key);
+                if (list == null || list.size == 0) {
+                    return top;
+                }
+                lists[n++] = list;
+            }
+            // Drive the intersection from the rarest trigram; the others are walked forward
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int[] cursors = new int[lists.length];
+            
+            Postings smallest = lists[0];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int id = smallest.ids[i];
+                for (int j = 1; j < lists.length; j++) {
+                    cursors[j] = lists[j].seek(cursors[j], id);
+                    if (cursors[j] == lists[j].size) {
+                        break candidates;
+                    }
+                    if (lists[j].ids[cursors[j]] != id) {
+                        continue candidates;
+                    }
+                }
+                // Trigrams can match out of order or across fields, so confirm each term
+                int score = score(documents[id], terms);
+                if (score > 0) {
+                    top.offer(score, id);
+                    // Candidates arrive in id order, so once the heap holds only top scores
+                    // nothing later can displace them
+                    if (!exhaustive && top.isFull() && top.minScore() == maxScore) {
+                        break;
+                    }
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int trigrams() { return postings.size(); }
+    
+    public long getQueries() { return queries.sum(); }
+    
+    public long getFallbacks() { return fallbacks.sum(); }
+    
+    private void put(Long patientId, String document) {
+        int id = Math.toIntExact(patientId);
+        if (id >= documents.length) {
+            documents = Arrays.copyOf(documents, Math.max(id + 1, documents.length * 2));
+        }
+        String previous = documents[id];
+        if (document.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            forEachTrigram(previous, key -> postings.get(key).remove(id));
+        } else {
+            size++;
+        }
+        documents[id] = document;
+        forEachTrigram(document, key -> postings.computeIfAbsent(key, k -> new Postings()).add(id));
+    }
+    
+    /**
+     * Sum over terms of 3 for a match at the start of a field, 2 at the start of a word and 1
+     * anywhere else; 0 if any term does not match at all.
+     */
+    private static int score(String document, List<String> terms) {
+        int score = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (int at = document.indexOf(term); at >= 0 && best < 3; at = document.indexOf(term, at + 1)) {
+                char before = at == 0 ? '\n' : document.charAt(at - 1);
+                best = Math.max(best, before == '\n' ? 3 : Character.isLetterOrDigit(before) ? 1 : 2);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+    
+    private static String document(String firstName, String lastName, String email, String phone) {
+        return normalize(firstName) + "\n" + normalize(lastName) + "\n" + normalize(email) + "\n" + digits(phone);
+    }
+    
+    private static List<String> terms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : normalize(query).split("\\s+")) {
+            // Phone numbers are indexed as bare digits, so "555-0101" has to match "5550101"
+            if (!term.isEmpty() && term.chars().anyMatch(Character::isDigit) && term.matches("[0-9+().-]+")) {
+                term = digits(term);
+            }
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String digits(String value) {
+        return value == null ? "" : value.replaceAll("[^0-9]", "");
+    }
+    
+    /** Calls {@code action} once per distinct trigram, never spanning a field boundary. */
+    private static void forEachTrigram(String text, LongConsumer action) {
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i + MIN_TERM_LENGTH <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a == '\n' || b == '\n' || c == '\n') {
+                continue;
+            }
+            long key = ((long) a << 32) | ((long) b << 16) | c;
+            if (seen.add(key)) {
+                action.accept(key);
+            }
+        }
+    }
+    
+    /** Sorted, growable int array of patient ids. */
+    static final class Postings {
+        int[] ids = new int[4];
+        int size;
+        
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                insert(-at - 1, id);
+                return;
+            }
+            // Ids come from a sequence, so almost every add is an append
+            insert(size, id);
+        }
+        
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+        
+        /** First position at or after {@code from} holding an id >= {@code id}, or size. */
+        int seek(int from, int id) {
+            // Gallop ahead, then binary search the bracketed run
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        private void insert(int at, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+    
+    /**
+     * Bounded min-heap of (score, id) packed into longs so that a higher score, then a lower
+     * id, compares greater.
+     */
+    private static final class TopK {
+        private final long[] heap;
+        private int size;
+        private int matched;
+        
+        TopK(int capacity) {
+            this.heap = new long[Math.max(capacity, 0)];
+        }
+        
+        int capacity() {
+            return heap.length;
+        }
+        
+        boolean isFull() {
+            return size == heap.length;
+        }
+        
+        int matched() {
+            return matched;
+        }
+        
+        int minScore() {
+            return (int) (heap[0] >>> 32);
+        }
+        
+        void offer(int score, int id) {
+            matched++;
+            if (heap.length == 0) {
+                return;
+            }
+            long entry = ((long) score << 32) | (Integer.MAX_VALUE - id);
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(size++);
+            } else if (entry > heap[0]) {
+                heap[0] = entry;
+                siftDown(0);
+            }
+        }
+        
+        long[] ids() {
+            long[] entries = Arrays.copyOf(heap, size);
+            Arrays.sort(entries);
+            long[] ids = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = Integer.MAX_VALUE - (int) entries[size - 1 - i];
+            }
+            return ids;
+        }
+        
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+        
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && heap[right] < heap[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+        
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
\ No newline at end of file
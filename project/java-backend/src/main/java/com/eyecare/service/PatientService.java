@@ -1,10 +1,13 @@
 package com.eyecare.service;
 
+import com.eyecare.dto.PatientListView;
 import com.eyecare.model.Patient;
 import com.eyecare.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,15 @@ public class PatientService {
     @Autowired
     private PatientRepository patientRepository;
     
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    @Autowired
+    private PatientSearchIndex searchIndex;
+    
+    @Autowired
+    private TypeaheadService typeaheadService;
+    
     public List<Patient> getAllPatients() {
         return patientRepository.findAll();
     }
@@ -26,18 +38,56 @@ public class PatientService {
         return patientRepository.findByUserId(userId);
     }
     
-    public List<Patient> searchPatients(String search) {
-        if (search == null || search.trim().isEmpty()) {
-            return getAllPatients();
+    /**
+     * One page of patients matching {@code search}. Searches answerable by the trigram index
+     * come back ranked by relevance; everything else is sorted and sliced by the database.
+     */
+    public List<PatientListView> searchPatients(String search, Sort sort, long offset, int limit) {
+        long[] ids = useIndex(search, sort)
+                ? searchIndex.search(search, (int) Math.min(offset + limit, Integer.MAX_VALUE))
+                : null;
+        if (ids == null) {
+            return patientRepository.findViews(search, sort, offset, limit);
+        }
+        List<Long> page = new ArrayList<>();
+        for (long i = offset; i < ids.length; i++) {
+            page.add(ids[(int) i]);
         }
-        return patientRepository.findBySearchTerm(search);
+        return patientRepository.findViewsByIds(page);
+    }
+    
+    public long countPatients(String search, Sort sort) {
+        int count = useIndex(search, sort) ? searchIndex.count(search) : -1;
+        return count >= 0 ? count : patientRepository.countViews(search);
     }
     
     public Patient savePatient(Patient patient) {
-        return patientRepository.save(patient);
+        Patient savedPatient = patientRepository.save(patient);
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.index(savedPatient);
+            typeaheadService.indexPatient(savedPatient);
+        });
+        return savedPatient;
+    }
+    
+    public List<Patient> savePatients(List<Patient> patients) {
+        List<Patient> savedPatients = patientRepository.saveAll(patients);
+        TransactionHooks.afterCommit(() -> savedPatients.forEach(savedPatient -> {
+            searchIndex.index(savedPatient);
+            typeaheadService.indexPatient(savedPatient);
+        }));
+        return savedPatients;
     }
     
     public void deletePatient(Long id) {
         patientRepository.deleteById(id);
+        profileResolver.evictPatient(id);
+        searchIndex.remove(id);
+        typeaheadService.removePatient(id);
+    }
+    
+    private static boolean useIndex(String search, Sort sort) {
+        // An explicit sort asks for database order rather than relevance
+        return search != null && !search.isBlank() && sort.isUnsorted();
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.AppointmentView;
+import com.eyecare.dto.DoctorView;
+import com.eyecare.dto.MedicalRecordListView;
+import com.eyecare.dto.PatientSummary;
+import com.eyecare.dto.PatientView;
+import com.eyecare.model.Appointment;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.MedicalRecordRepository;
+import com.eyecare.repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the patient chart in one round trip. The profile, upcoming appointments, latest
+ * medical records and treating doctors are queried concurrently, each under its own deadline,
+ * so a chart opens in about the time of the slowest query rather than the sum of all four.
+ */
+@Service
+public class PatientSummaryService {
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${patient.summary.timeout-ms:2000}")
+    private long timeoutMillis;
+    
+    @Value("${patient.summary.appointments:10}")
+    private int appointmentLimit;
+    
+    @Value("${patient.summary.medical-records:5}")
+    private int medicalRecordLimit;
+    
+    private final ThreadPoolExecutor executor;
+    private TransactionTemplate queryTransaction;
+    
+    public PatientSummaryService(@Value("${patient.summary.threads:10}") int threads,
+                                 @Value("${patient.summary.queue-capacity:100}") int queueCapacity) {
+        // The queries block on JDBC, so size this near the connection pool rather than the cores
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patient-summary-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @PostConstruct
+    public void init() {
+        // orTimeout only stops waiting; the statement timeout makes the database give the worker back
+        queryTransaction = new TransactionTemplate(transactionManager);
+        queryTransaction.setReadOnly(true);
+        queryTransaction.setTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Returns null if the patient does not exist. If the profile itself misses its deadline
+     * the summary comes back with a null patient.
+     */
+    public PatientSummary getSummary(Long patientId) {
+        CompletableFuture<Optional<PatientView>> profile = fetch(
+                () -> patientRepository.findViewById(patientId));
+        CompletableFuture<List<AppointmentView>> appointments = fetch(
+                () -> appointmentRepository.findViewsAfter(LocalDate.now(), null, null, patientId,
+                        Appointment.Status.SCHEDULED, null, appointmentLimit));
+        CompletableFuture<List<MedicalRecordListView>> medicalRecords = fetch(
+                () -> medicalRecordRepository.findViewsAfter(patientId, null, null, null, null, null, medicalRecordLimit));
+        CompletableFuture<List<DoctorView>> doctors = fetch(
+                () -> doctorRepository.findTreatingViews(patientId));
+        
+        List<String> incomplete = new ArrayList<>();
+        Optional<PatientView> patient = await(profile, "patient", incomplete);
+        if (patient != null && patient.isEmpty()) {
+            return null;
+        }
+        return new PatientSummary(
+                patient != null ? patient.get() : null,
+                orEmpty(await(appointments, "upcoming_appointments", incomplete)),
+                orEmpty(await(medicalRecords, "recent_medical_records", incomplete)),
+                orEmpty(await(doctors, "doctors", incomplete)),
+                incomplete);
+    }
+    
+    private <T> CompletableFuture<T> fetch(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(() -> queryTransaction.execute(status -> query.get()), executor)
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // A full queue would not start the query before its deadline anyway
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /** Marks the section incomplete if it ran out of time; any other failure is rethrown. */
+    private static <T> T await(CompletableFuture<T> future, String section, List<String> incomplete) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException || cause instanceof RejectedExecutionException
+                    || cause instanceof QueryTimeoutException || cause instanceof TransactionTimedOutException) {
+                incomplete.add(section);
+                return null;
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+    
+    private static <T> List<T> orEmpty(List<T> rows) {
+        return rows != null ? rows : List.of();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.eyecare.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Burst trie over normalized name keys. Every node down to {@code depth} characters holds its
+ * subtree's best {@code topK} entry ids, so a prefix of up to that length is answered by one
+ * walk; deeper prefixes filter the small bucket kept at the last level. Entries rank by
+ * display name, then id. Not thread-safe; callers lock around it.
+ */
+final class PrefixIndex {
+    
+    private static final int[] NO_IDS = new int[0];
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    
+    private final int depth;
+    private final int topK;
+    private final Node root = new Node();
+    
+    private String[] names = new String[256];
+    private String[] sortNames = new String[256];
+    private String[][] keys = new String[256][];
+    private int size;
+    
+    private final Comparator<Integer> rank = (a, b) -> {
+        int result = sortNames[a].compareTo(sortNames[b]);
+        return result != 0 ? result : Integer.compare(a, b);
+    };
+    
+    PrefixIndex(int depth, int topK) {
+        this.depth = depth;
+        this.topK = topK;
+    }
+    
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+    
+    /** Indexes under the first name, the last name and the full name. */
+    void put(long entryId, String firstName, String lastName) {
+        int id = Math.toIntExact(entryId);
+        String name = ((firstName == null ? "" : firstName.trim()) + " " + (lastName == null ? "" : lastName.trim())).trim();
+        if (id < names.length && name.equals(names[id])) {
+            return;
+        }
+        remove(entryId);
+        if (id >= names.length) {
+            int length = Math.max(id + 1, names.length * 2);
+            names = Arrays.copyOf(names, length);
+            sortNames = Arrays.copyOf(sortNames, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+        Set<String> entryKeys = new LinkedHashSet<>();
+        for (String key : new String[] {normalize(firstName), normalize(lastName), normalize(name)}) {
+            if (!key.isEmpty()) {
+                entryKeys.add(key);
+            }
+        }
+        names[id] = name;
+        sortNames[id] = normalize(name);
+        keys[id] = entryKeys.toArray(new String[0]);
+        size++;
+        
+        for (String path : paths(keys[id])) {
+            Node node = root;
+            node.offer(id);
+            for (int i = 0; i < path.length(); i++) {
+                node = node.child(path.charAt(i), true);
+                node.offer(id);
+            }
+            node.addOwn(id);
+        }
+    }
+    
+    void remove(long entryId) {
+        int id = Math.toIntExact(entryId);
+        if (id >= names.length || names[id] == null) {
+            return;
+        }
+        // Detach first, then refill affected nodes deepest first so parents merge settled children
+        List<List<Node>> paths = new ArrayList<>();
+        for (String key : paths(keys[id])) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i), false);
+                path.add(node);
+            }
+            node.removeOwn(id);
+            paths.add(path);
+        }
+        for (int level = depth; level >= 0; level--) {
+            for (List<Node> path : paths) {
+                if (level < path.size() && path.get(level).contains(id)) {
+                    path.get(level).refill(id);
+                }
+            }
+        }
+        // A node left with an empty top list has no entries below it; unlink it bottom up
+        for (List<Node> path : paths) {
+            for (int level = path.size() - 1; level > 0 && path.get(level).top.length == 0; level--) {
+                path.get(level - 1).removeChild(path.get(level));
+            }
+        }
+        names[id] = null;
+        sortNames[id] = null;
+        keys[id] = null;
+        size--;
+    }
+    
+    /** Best {@code k} ids whose first, last or full name starts with {@code prefix}. */
+    int[] lookup(String prefix, int k) {
+        String query = normalize(prefix);
+        Node node = root;
+        int length = Math.min(query.length(), depth);
+        for (int i = 0; i < length && node != null; i++) {
+            node = node.child(query.charAt(i), false);
+        }
+        if (node == null) {
+            return NO_IDS;
+        }
+        if (query.length() <= depth) {
+            return Arrays.copyOf(node.top, Math.min(k, node.top.length));
+        }
+        
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < node.ownSize; i++) {
+            int id = node.own[i];
+            for (String key : keys[id]) {
+                if (key.startsWith(query)) {
+                    matches.add(id);
+                    break;
+                }
+            }
+        }
+        matches.sort(rank);
+        return matches.stream().limit(k).mapToInt(Integer::intValue).toArray();
+    }
+    
+    /** Distinct trie paths of an entry's keys; keys sharing the first {@code depth} characters share one. */
+    private Set<String> paths(String[] entryKeys) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String key : entryKeys) {
+            paths.add(key.substring(0, Math.min(key.length(), depth)));
+        }
+        return paths;
+    }
+    
+    String name(int id) {
+        return names[id];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private final class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        int[] top = NO_IDS;
+        // Entries whose key ends here, or every entry reaching this node at the maximum depth
+        int[] own = NO_IDS;
+        int ownSize;
+        
+        Node child(char label, boolean create) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at >= 0) {
+                return children[at];
+            }
+            if (!create) {
+                return null;
+            }
+            int insert = -at - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = label;
+            newChildren[insert] = new Node();
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insert];
+        }
+        
+        void removeChild(Node child) {
+            for (int at = 0; at < children.length; at++) {
+                if (children[at] == child) {
+                    char[] newLabels = new char[labels.length - 1];
+                    Node[] newChildren = new Node[children.length - 1];
+                    System.arraycopy(labels, 0, newLabels, 0, at);
+                    System.arraycopy(children, 0, newChildren, 0, at);
+                    System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+                    System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+                    labels = newLabels;
+                    children = newChildren;
+                    return;
+                }
+            }
+        }
+        
+        boolean contains(int id) {
+            for (int candidate : top) {
+                if (candidate == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void offer(int id) {
+            if (contains(id)) {
+                return;
+            }
+            int at = top.length;
+            while (at > 0 && rank.compare(id, top[at - 1]) < 0) {
+                at--;
+            }
+            if (at >= topK) {
+                return;
+            }
+            int[] updated = new int[Math.min(top.length + 1, topK)];
+            System.arraycopy(top, 0, updated, 0, at);
+            updated[at] = id;
+            System.arraycopy(top, at, updated, at + 1, updated.length - at - 1);
+            top = updated;
+        }
+        
+        /** Rebuilds {@link #top} without {@code removed} from own entries and children's tops. */
+        void refill(int removed) {
+            top = NO_IDS;
+            for (int i = 0; i < ownSize; i++) {
+                offer(own[i]);
+            }
+            for (Node child : children) {
+                for (int id : child.top) {
+                    if (id != removed) {
+                        offer(id);
+                    }
+                }
+            }
+        }
+        
+        void addOwn(int id) {
+            if (ownSize == own.length) {
+                own = Arrays.copyOf(own, Math.max(4, ownSize * 2));
+            }
+            own[ownSize++] = id;
+        }
+        
+        void removeOwn(int id) {
+            for (int i = 0; i < ownSize; i++) {
+                if (own[i] == id) {
+                    own[i] = own[--ownSize];
+                    return;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.eyecare.service;
+
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.PatientRepository;
+import com.eyecare.util.BoundedMaps;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maps a user id to the patient and doctor profile ids that belong to it, so role-scoped
+ * endpoints can filter by profile without querying the profile tables on every call.
+ */
+@Component
+public class ProfileResolver {
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Value("${profile.cache.max-size:50000}")
+    private int maxSize;
+    
+    private final ConcurrentHashMap<Long, ProfileIds> profiles = new ConcurrentHashMap<>();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public Long getPatientId(Long userId) {
+        return resolve(userId).getPatientId();
+    }
+    
+    public Long getDoctorId(Long userId) {
+        return resolve(userId).getDoctorId();
+    }
+    
+    public ProfileIds resolve(Long userId) {
+        ProfileIds ids = profiles.get(userId);
+        if (ids != null) {
+            hits.increment();
+            return ids;
+        }
+        misses.increment();
+        ids = new ProfileIds(patientRepository.findIdByUserId(userId).orElse(null),
+                             doctorRepository.findIdByUserId(userId).orElse(null));
+        store(userId, ids);
+        return ids;
+    }
+    
+    public void registerPatient(Long userId, Long patientId) {
+        ProfileIds current = profiles.get(userId);
+        store(userId, new ProfileIds(patientId, current != null ? current.getDoctorId() : null));
+    }
+    
+    public void registerDoctor(Long userId, Long doctorId) {
+        ProfileIds current = profiles.get(userId);
+        store(userId, new ProfileIds(current != null ? current.getPatientId() : null, doctorId));
+    }
+    
+    public void evictPatient(Long patientId) {
+        profiles.values().removeIf(ids -> patientId.equals(ids.getPatientId()));
+    }
+    
+    public void evictDoctor(Long doctorId) {
+        profiles.values().removeIf(ids -> doctorId.equals(ids.getDoctorId()));
+    }
+    
+    public long getHits() { return hits.sum(); }
+    
+    public long getMisses() { return misses.sum(); }
+    
+    public int size() { return profiles.size(); }
+    
+    private void store(Long userId, ProfileIds ids) {
+        if (profiles.size() >= maxSize) {
+            // Dropped entries are reloaded on next use
+            BoundedMaps.trim(profiles, maxSize);
+        }
+        profiles.put(userId, ids);
+    }
+    
+    public static final class ProfileIds {
+        private final Long patientId;
+        private final Long doctorId;
+        
+        public ProfileIds(Long patientId, Long doctorId) {
+            this.patientId = patientId;
+            this.doctorId = doctorId;
+        }
+        
+        public Long getPatientId() { return patientId; }
+        
+        public Long getDoctorId() { return doctorId; }
+    }
+}
\ No newline at end of file
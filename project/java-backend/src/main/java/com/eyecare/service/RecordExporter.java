@@ -0,0 +1,132 @@
+package com.eyecare.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams view records to a response body as NDJSON or CSV. Rows are pulled from a
+ * database cursor inside a read-only transaction and written one at a time, so memory use
+ * does not grow with the size of the export.
+ */
+@Component
+public class RecordExporter {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter rowWriter;
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Let the output buffer decide when to hit the socket instead of flushing every row
+        rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+    
+    public <T extends Record> void export(Supplier<Stream<T>> query, Class<T> type, ExportFormat format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> rows = query.get()) {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(rows.iterator(), type, writer);
+                } else {
+                    writeNdjson(rows.iterator(), writer);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    private <T> void writeNdjson(Iterator<T> rows, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            rowWriter.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+    
+    private <T extends Record> void writeCsv(Iterator<T> rows, Class<T> type, Writer writer) throws IOException {
+        RecordComponent[] components = type.getRecordComponents();
+        Method[] accessors = new Method[components.length];
+        for (int i = 0; i < components.length; i++) {
+            accessors[i] = components[i].getAccessor();
+            JsonProperty property = accessors[i].getAnnotation(JsonProperty.class);
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(property != null ? property.value() : components[i].getName());
+        }
+        writer.write('\n');
+        
+        while (rows.hasNext()) {
+            T row = rows.next();
+            for (int i = 0; i < accessors.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value;
+                try {
+                    value = accessors[i].invoke(row);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (value != null) {
+                    writeCsvField(value.toString(), value instanceof CharSequence, writer);
+                }
+            }
+            writer.write('\n');
+        }
+    }
+    
+    private static void writeCsvField(String value, boolean text, Writer writer) throws IOException {
+        // Spreadsheets run free text starting with one of these as a formula, so it is
+        // prefixed with an apostrophe to be read as text; numbers like -0.3 are left alone
+        boolean formula = text && !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
\ No newline at end of file
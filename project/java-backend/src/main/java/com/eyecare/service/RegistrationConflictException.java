@@ -0,0 +1,17 @@
+package com.eyecare.service;
+
+public class RegistrationConflictException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final String field;
+    
+    public RegistrationConflictException(String field, Throwable cause) {
+        super("Registration conflicts on " + field, cause);
+        this.field = field;
+    }
+    
+    public String getField() {
+        return field;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.eyecare.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Defers in-memory index updates until the rows they describe are committed. */
+final class TransactionHooks {
+    
+    private TransactionHooks() {
+    }
+    
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside one, so
+     * rows saved in a transaction that later rolls back never show up in search.
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.Suggestion;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Name autocomplete for patients and active doctors, answered from precomputed per-prefix
+ * top-k lists and kept current by the patient, doctor and user services.
+ */
+@Component
+public class TypeaheadService {
+    
+    private static final int WARM_BATCH_SIZE = 10000;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private ProfileResolver profileResolver;
+    
+    private final int topK;
+    private final LockedIndex patients;
+    private final LockedIndex doctors;
+    
+    private final LongAdder lookups = new LongAdder();
+    
+    public TypeaheadService(@Value("${search.typeahead.depth:6}") int depth,
+                            @Value("${search.typeahead.top-k:10}") int topK) {
+        this.topK = topK;
+        this.patients = new LockedIndex(new PrefixIndex(depth, topK));
+        this.doctors = new LockedIndex(new PrefixIndex(depth, topK));
+    }
+    
+    @PostConstruct
+    public void warm() {
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            batch = patientRepository.findSearchFieldsAfter(afterId, PageRequest.of(0, WARM_BATCH_SIZE));
+            for (Object[] row : batch) {
+                afterId = (Long) row[0];
+                patients.put(afterId, (String) row[1], (String) row[2]);
+            }
+        } while (batch.size() == WARM_BATCH_SIZE);
+        
+        for (Object[] row : doctorRepository.findActiveNames()) {
+            doctors.put((Long) row[0], (String) row[1], (String) row[2]);
+        }
+    }
+    
+    public void indexPatient(Patient patient) {
+        patients.put(patient.getId(), patient.getUser().getFirstName(), patient.getUser().getLastName());
+    }
+    
+    public void removePatient(Long patientId) {
+        patients.remove(patientId);
+    }
+    
+    public void indexDoctor(Doctor doctor) {
+        User user = doctor.getUser();
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            doctors.remove(doctor.getId());
+        } else {
+            doctors.put(doctor.getId(), user.getFirstName(), user.getLastName());
+        }
+    }
+    
+    public void removeDoctor(Long doctorId) {
+        doctors.remove(doctorId);
+    }
+    
+    /** Deactivated doctors stop being suggested; reactivated ones come back. */
+    public void onAccessChanged(User user) {
+        Long doctorId = profileResolver.getDoctorId(user.getId());
+        if (doctorId == null) {
+            return;
+        }
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            doctors.remove(doctorId);
+        } else {
+            doctors.put(doctorId, user.getFirstName(), user.getLastName());
+        }
+    }
+    
+    public List<Suggestion> suggestPatients(String prefix, int k) {
+        lookups.increment();
+        return patients.lookup(prefix, k);
+    }
+    
+    public List<Suggestion> suggestDoctors(String prefix, int k) {
+        lookups.increment();
+        return doctors.lookup(prefix, k);
+    }
+    
+    public int getTopK() { return topK; }
+    
+    public int getPatientCount() { return patients.size(); }
+    
+    public int getDoctorCount() { return doctors.size(); }
+    
+    public long getLookups() { return lookups.sum(); }
+    
+    private static final class LockedIndex {
+        private final PrefixIndex index;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        
+        LockedIndex(PrefixIndex index) {
+            this.index = index;
+        }
+        
+        void put(Long id, String firstName, String lastName) {
+            lock.writeLock().lock();
+            try {
+                index.put(id, firstName, lastName);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                index.remove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        List<Suggestion> lookup(String prefix, int k) {
+            lock.readLock().lock();
+            try {
+                int[] ids = index.lookup(prefix, k);
+                List<Suggestion> suggestions = new ArrayList<>(ids.length);
+                for (int id : ids) {
+                    suggestions.add(new Suggestion((long) id, index.name(id)));
+                }
+                return suggestions;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        int size() {
+            lock.readLock().lock();
+            try {
+                return index.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
\ No newline at end of file
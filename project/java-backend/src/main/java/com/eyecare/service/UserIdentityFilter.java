@@ -0,0 +1,69 @@
+package com.eyecare.service;
+
+import com.eyecare.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bloom filters over every registered username and email. A negative answer means the value
+ * is definitely unused on this node, so registration can skip the uniqueness query entirely;
+ * registrations made on other nodes are still caught by the database unique constraints.
+ */
+@Component
+public class UserIdentityFilter {
+    
+    private static final int WARM_BATCH_SIZE = 10000;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+    
+    public UserIdentityFilter(@Value("${registration.bloom.expected-users:1000000}") long expectedUsers,
+                              @Value("${registration.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+    
+    @PostConstruct
+    public void warm() {
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            batch = userRepository.findIdentitiesAfter(afterId, PageRequest.of(0, WARM_BATCH_SIZE));
+            for (Object[] row : batch) {
+                afterId = (Long) row[0];
+                add((String) row[1], (String) row[2]);
+            }
+        } while (batch.size() == WARM_BATCH_SIZE);
+    }
+    
+    public void add(String username, String email) {
+        usernames.add(normalize(username));
+        emails.add(normalize(email));
+    }
+    
+    public boolean mightContainUsername(String username) {
+        return usernames.mightContain(normalize(username));
+    }
+    
+    public boolean mightContainEmail(String email) {
+        return emails.mightContain(normalize(email));
+    }
+    
+    public long sizeInBytes() {
+        return usernames.sizeInBytes() + emails.sizeInBytes();
+    }
+    
+    private static String normalize(String value) {
+        // Case-folded so the filter never misses under a case-insensitive collation
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
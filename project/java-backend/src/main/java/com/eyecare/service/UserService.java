@@ -2,17 +2,23 @@ package com.eyecare.service;
 
 import com.eyecare.model.User;
 import com.eyecare.repository.UserRepository;
+import com.eyecare.security.PasswordHashingExecutor;
+import com.eyecare.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
@@ -20,6 +26,21 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
+    @Autowired
+    private UserIdentityFilter identityFilter;
+    
+    @Autowired
+    private TypeaheadService typeaheadService;
+    
+    private final LongAdder conflictChecksSkipped = new LongAdder();
+    private final LongAdder conflictChecksQueried = new LongAdder();
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsernameOrEmail(username, username)
@@ -27,11 +48,94 @@ public class UserService implements UserDetailsService {
         return user;
     }
     
-    public User createUser(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        // Called on successful login when the stored hash cost differs from the configured one
+        User user = (User) userDetails;
+        user.setPassword(newPassword);
         return userRepository.save(user);
     }
     
+    public User createUser(User user) {
+        String rawPassword = user.getPassword();
+        user.setPassword(hashingExecutor.execute(() -> passwordEncoder.encode(rawPassword)));
+        
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with another registration; the unique constraints caught it
+            String field = queryRegistrationConflict(user.getUsername(), user.getEmail());
+            throw new RegistrationConflictException(field != null ? field : "username", e);
+        }
+        identityFilter.add(savedUser.getUsername(), savedUser.getEmail());
+        return savedUser;
+    }
+    
+    /**
+     * Batch insert for users whose passwords are already encoded. Unlike {@link #createUser}
+     * a constraint violation fails the whole batch.
+     */
+    public List<User> saveUsers(List<User> users) {
+        List<User> savedUsers = userRepository.saveAll(users);
+        for (User user : savedUsers) {
+            identityFilter.add(user.getUsername(), user.getEmail());
+        }
+        return savedUsers;
+    }
+    
+    /**
+     * Returns "username" or "email" for the field already taken, or null if both are free.
+     */
+    public String findRegistrationConflict(String username, String email) {
+        if (!identityFilter.mightContainUsername(username) && !identityFilter.mightContainEmail(email)) {
+            conflictChecksSkipped.increment();
+            return null;
+        }
+        conflictChecksQueried.increment();
+        return queryRegistrationConflict(username, email);
+    }
+    
+    public long getConflictChecksSkipped() { return conflictChecksSkipped.sum(); }
+    
+    public long getConflictChecksQueried() { return conflictChecksQueried.sum(); }
+    
+    private String queryRegistrationConflict(String username, String email) {
+        List<Object[]> matches = userRepository.findIdentityConflicts(username, email);
+        for (Object[] row : matches) {
+            if (username.equalsIgnoreCase((String) row[0])) {
+                return "username";
+            }
+        }
+        return matches.isEmpty() ? null : "email";
+    }
+    
+    public Optional<User> getUserById(Long id) {
+        return userRepository.findById(id);
+    }
+    
+    public User updateAccess(User user, User.Role role, Boolean isActive) {
+        boolean changed = false;
+        if (role != null && role != user.getRole()) {
+            user.setRole(role);
+            changed = true;
+        }
+        if (isActive != null && !isActive.equals(user.getIsActive())) {
+            user.setIsActive(isActive);
+            changed = true;
+        }
+        if (!changed) {
+            return user;
+        }
+        
+        // Tokens carry role and active flag, so outstanding ones must stop being accepted
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User savedUser = userRepository.save(user);
+        tokenVersionRegistry.update(savedUser.getId(), savedUser.getTokenVersion());
+        typeaheadService.onAccessChanged(savedUser);
+        return savedUser;
+    }
+    
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
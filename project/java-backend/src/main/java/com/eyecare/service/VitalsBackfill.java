@@ -0,0 +1,78 @@
+package com.eyecare.service;
+
+import com.eyecare.repository.MedicalRecordRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Derives the typed vitals columns for rows written before they existed, or by an older
+ * {@link VitalsParser}. Runs once after startup on a background thread, one short
+ * transaction per batch, so the application serves requests while it works.
+ */
+@Component
+public class VitalsBackfill {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private final LongAdder updated = new LongAdder();
+    private volatile boolean running;
+    private volatile boolean stopped;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "vitals-backfill");
+        thread.setDaemon(true);
+        running = true;
+        thread.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+    
+    public boolean isRunning() { return running; }
+    
+    public long getUpdated() { return updated.sum(); }
+    
+    private void run() {
+        try {
+            long afterId = 0;
+            List<Object[]> batch;
+            do {
+                batch = medicalRecordRepository.findVitalsPendingAfter(afterId, VitalsParser.VERSION, PageRequest.of(0, BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Object[]> rows = batch;
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Object[] row : rows) {
+                        Short iopRight = VitalsParser.parseIop((String) row[1]);
+                        Short iopLeft = VitalsParser.parseIop((String) row[2]);
+                        updated.add(medicalRecordRepository.updateVitals((Long) row[0], iopRight, iopLeft,
+                                VitalsParser.max(iopRight, iopLeft),
+                                VitalsParser.parseLogMar((String) row[3]), VitalsParser.parseLogMar((String) row[4]),
+                                VitalsParser.VERSION));
+                    }
+                });
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            } while (batch.size() == BATCH_SIZE && !stopped);
+        } finally {
+            running = false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.eyecare.service;
+
+import com.eyecare.model.MedicalRecord;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the free-text eye pressure and visual acuity fields into numbers. Pressures become
+ * whole mmHg; acuities become logMAR, decoded from Snellen fractions in feet (20/40) or metres
+ * (6/12) with per-letter adjustments (20/40-2), or from the counting fingers and hand motion
+ * notations.
+ */
+final class VitalsParser {
+    
+    /** Bump when parsing changes so existing rows are re-derived by {@link VitalsBackfill}. */
+    static final short VERSION = 1;
+    
+    private static final int MAX_IOP = 80;
+    private static final double LOGMAR_PER_LETTER = 0.02;
+    
+    // Schulze-Bonsel et al. (2006) equivalents; light perception has no logMAR value
+    private static final double COUNTING_FINGERS_LOGMAR = 2.0;
+    private static final double HAND_MOTION_LOGMAR = 2.3;
+    
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final Pattern SNELLEN = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)\\s*(?:([+-])\\s*(\\d))?");
+    
+    private VitalsParser() {
+    }
+    
+    static void apply(MedicalRecord record) {
+        record.setIopRight(parseIop(record.getEyePressureRight()));
+        record.setIopLeft(parseIop(record.getEyePressureLeft()));
+        record.setIopMax(max(record.getIopRight(), record.getIopLeft()));
+        record.setLogmarRight(parseLogMar(record.getVisualAcuityRight()));
+        record.setLogmarLeft(parseLogMar(record.getVisualAcuityLeft()));
+        record.setVitalsVersion(VERSION);
+    }
+    
+    /** First number in the text, rounded to whole mmHg, or null if absent or implausible. */
+    static Short parseIop(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = NUMBER.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        long mmHg = Math.round(Double.parseDouble(matcher.group()));
+        return mmHg <= MAX_IOP ? (short) mmHg : null;
+    }
+    
+    static Double parseLogMar(String text) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.trim().toUpperCase(Locale.ROOT);
+        if (value.startsWith("CF") || value.startsWith("COUNT")) {
+            return COUNTING_FINGERS_LOGMAR;
+        }
+        if (value.startsWith("HM") || value.startsWith("HAND")) {
+            return HAND_MOTION_LOGMAR;
+        }
+        Matcher matcher = SNELLEN.matcher(value);
+        if (!matcher.find()) {
+            return null;
+        }
+        double distance = Double.parseDouble(matcher.group(1));
+        double letters = Double.parseDouble(matcher.group(2));
+        if (distance <= 0 || letters <= 0) {
+            return null;
+        }
+        double logMar = Math.log10(letters / distance);
+        if (matcher.group(3) != null) {
+            // "-2" means two letters of the line were missed, "+1" one letter of the next was read
+            int adjustment = Integer.parseInt(matcher.group(4));
+            logMar += (matcher.group(3).equals("-") ? adjustment : -adjustment) * LOGMAR_PER_LETTER;
+        }
+        return Math.round(logMar * 100) / 100.0;
+    }
+    
+    static Short max(Short a, Short b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a >= b ? a : b;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.eyecare.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * A doctor's working week compiled from {@code availableDays}/{@code availableHours} into one
+ * bitmask per weekday, one bit per 5-minute slot.
+ */
+public final class WeeklyAvailability {
+    
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+    
+    private final long[] masks = new long[7 * WORDS_PER_DAY];
+    
+    private WeeklyAvailability() {}
+    
+    /**
+     * Accepts days such as "Mon,Tue,Fri" or "Mon-Fri" and hours such as "09:00-17:00" or
+     * "09:00-12:00,13:00-17:00". Anything unparseable contributes no availability.
+     */
+    public static WeeklyAvailability parse(String availableDays, String availableHours) {
+        WeeklyAvailability availability = new WeeklyAvailability();
+        if (availableDays == null || availableHours == null) {
+            return availability;
+        }
+        
+        boolean[] days = new boolean[7];
+        for (String token : availableDays.split(",")) {
+            String[] range = token.trim().split("-");
+            DayOfWeek first = parseDay(range[0]);
+            DayOfWeek last = range.length > 1 ? parseDay(range[1]) : first;
+            if (first == null || last == null) {
+                continue;
+            }
+            for (int d = first.ordinal(); ; d = (d + 1) % 7) {
+                days[d] = true;
+                if (d == last.ordinal()) {
+                    break;
+                }
+            }
+        }
+        
+        long[] hours = new long[WORDS_PER_DAY];
+        for (String token : availableHours.split(",")) {
+            String[] range = token.trim().split("-");
+            if (range.length != 2) {
+                continue;
+            }
+            try {
+                int start = LocalTime.parse(range[0].trim()).toSecondOfDay() / 60;
+                int end = "24:00".equals(range[1].trim()) ? 24 * 60 : LocalTime.parse(range[1].trim()).toSecondOfDay() / 60;
+                // Only whole slots inside the working hours are bookable
+                setRange(hours, (start + SLOT_MINUTES - 1) / SLOT_MINUTES, end / SLOT_MINUTES);
+            } catch (RuntimeException e) {
+                // Ignore malformed ranges
+            }
+        }
+        
+        for (int d = 0; d < 7; d++) {
+            if (days[d]) {
+                System.arraycopy(hours, 0, availability.masks, d * WORDS_PER_DAY, WORDS_PER_DAY);
+            }
+        }
+        return availability;
+    }
+    
+    public void copyDay(DayOfWeek day, long[] into) {
+        System.arraycopy(masks, (day.getValue() - 1) * WORDS_PER_DAY, into, 0, WORDS_PER_DAY);
+    }
+    
+    public boolean isEmpty() {
+        for (long mask : masks) {
+            if (mask != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static void setRange(long[] bits, int fromSlot, int toSlot) {
+        for (int slot = Math.max(0, fromSlot); slot < Math.min(SLOTS_PER_DAY, toSlot); slot++) {
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+    
+    static void clearRange(long[] bits, int fromSlot, int toSlot) {
+        for (int slot = Math.max(0, fromSlot); slot < Math.min(SLOTS_PER_DAY, toSlot); slot++) {
+            bits[slot >>> 6] &= ~(1L << slot);
+        }
+    }
+    
+    static boolean isSet(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+    
+    private static DayOfWeek parseDay(String token) {
+        String day = token.trim().toLowerCase(Locale.ROOT);
+        if (day.length() < 3) {
+            return null;
+        }
+        switch (day.substring(0, 3)) {
+            case "mon": return DayOfWeek.MONDAY;
+            case "tue": return DayOfWeek.TUESDAY;
+            case "wed": return DayOfWeek.WEDNESDAY;
+            case "thu": return DayOfWeek.THURSDAY;
+            case "fri": return DayOfWeek.FRIDAY;
+            case "sat": return DayOfWeek.SATURDAY;
+            case "sun": return DayOfWeek.SUNDAY;
+            default: return null;
+        }
+    }
+}
\ No newline at end of file
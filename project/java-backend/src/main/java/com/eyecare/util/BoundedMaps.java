@@ -0,0 +1,45 @@
+package com.eyecare.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Size bound shared by the in-memory caches. None of them needs LRU precision, so a full map
+ * sheds expired entries first and then arbitrary ones down to 90% of capacity, leaving room
+ * for a run of puts before the next pass.
+ */
+public final class BoundedMaps {
+    
+    private BoundedMaps() {
+    }
+    
+    public static <K, V> void trim(Map<K, V> map, int capacity) {
+        trim(map, capacity, value -> false, (key, value) -> { });
+    }
+    
+    /**
+     * Removes the entries {@code expired} accepts, then arbitrary entries until {@code map}
+     * holds at most 90% of {@code capacity}. Every removed entry is passed to {@code onEvict}.
+     */
+    public static <K, V> void trim(Map<K, V> map, int capacity, Predicate<? super V> expired,
+                                   BiConsumer<? super K, ? super V> onEvict) {
+        Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, V> entry = it.next();
+            if (expired.test(entry.getValue())) {
+                it.remove();
+                onEvict.accept(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        int target = capacity - capacity / 10;
+        it = map.entrySet().iterator();
+        while (map.size() > target && it.hasNext()) {
+            Map.Entry<K, V> entry = it.next();
+            it.remove();
+            onEvict.accept(entry.getKey(), entry.getValue());
+        }
+    }
+}
\ No newline at end of file
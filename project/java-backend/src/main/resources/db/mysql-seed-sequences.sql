@@ -0,0 +1,26 @@
+-- One-off migration for a MySQL database whose ids were generated with IDENTITY.
+--
+-- Entity ids now come from pooled sequences (allocationSize = 50). MySQL has no sequences, so
+-- Hibernate keeps each one in a single-row *_seq table, which would otherwise start at 1 and
+-- hand out ids that already exist. Run this once, with the application stopped, before the
+-- first start of a build that uses the sequences. It is safe to run again.
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT);
+DELETE FROM users_seq;
+INSERT INTO users_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM users;
+
+CREATE TABLE IF NOT EXISTS doctors_seq (next_val BIGINT);
+DELETE FROM doctors_seq;
+INSERT INTO doctors_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM doctors;
+
+CREATE TABLE IF NOT EXISTS patients_seq (next_val BIGINT);
+DELETE FROM patients_seq;
+INSERT INTO patients_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM patients;
+
+CREATE TABLE IF NOT EXISTS appointments_seq (next_val BIGINT);
+DELETE FROM appointments_seq;
+INSERT INTO appointments_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM appointments;
+
+CREATE TABLE IF NOT EXISTS medical_records_seq (next_val BIGINT);
+DELETE FROM medical_records_seq;
+INSERT INTO medical_records_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM medical_records;
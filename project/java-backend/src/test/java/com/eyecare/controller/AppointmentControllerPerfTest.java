@@ -0,0 +1,115 @@
+package com.eyecare.controller;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.PatientRepository;
+import com.eyecare.repository.UserRepository;
+import com.eyecare.security.JwtUtils;
+import com.eyecare.service.AppointmentService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Heap allocated per row and latency percentiles of a 1,000-row GET /appointments page,
+ * read as typed projections and serialized to JSON. MockMvc runs the request on the test
+ * thread, so that thread's allocation counter covers the query, mapping and serialization.
+ */
+@Tag("perf")
+@SpringBootTest(properties = {
+        "pagination.max-limit=1000",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.eyecare=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@AutoConfigureMockMvc
+class AppointmentControllerPerfTest {
+    
+    private static final int ROWS = 1000;
+    private static final int WARM_UP = 50;
+    private static final int SAMPLES = 200;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private AppointmentService appointmentService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Test
+    void thousandRowPageAllocationAndLatency() throws Exception {
+        Doctor doctor = doctorRepository.save(new Doctor(user("perfdoctor", User.Role.DOCTOR)));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Patient patient = patientRepository.save(new Patient(user("perfpatient" + i, User.Role.PATIENT)));
+            Appointment appointment = new Appointment(patient, doctor, LocalDate.of(2030, 1, 1).plusDays(i / 16),
+                    LocalTime.of(9, 0).plusMinutes(30L * (i % 16)));
+            appointment.setReason("Routine eye examination");
+            appointments.add(appointment);
+        }
+        appointmentService.saveAppointments(appointments);
+        String bearer = "Bearer " + jwtUtils.generateToken(userRepository.findByUsername("admin").orElseThrow());
+        String url = "/appointments?doctorId=" + doctor.getId() + "&limit=" + ROWS;
+        
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] nanos = new long[SAMPLES];
+        long allocated = 0;
+        for (int i = -WARM_UP; i < SAMPLES; i++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long started = System.nanoTime();
+            mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(ROWS));
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - started;
+                allocated += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            }
+        }
+        
+        Arrays.sort(nanos);
+        long bytesPerRow = allocated / SAMPLES / ROWS;
+        double p50 = nanos[SAMPLES / 2] / 1e6;
+        double p99 = nanos[SAMPLES * 99 / 100] / 1e6;
+        System.out.printf("GET /appointments, %d rows: %d bytes/row allocated, p50 %.1f ms, p99 %.1f ms%n", ROWS, bytesPerRow, p50, p99);
+        
+        // Loose ceilings that catch a return to per-row entity loading, not small drifts.
+        // The per-row figure includes asserting on the response with jsonPath.
+        assertThat(bytesPerRow).isLessThan(64 * 1024);
+        assertThat(p99).isLessThan(2000);
+    }
+    
+    private User user(String name, User.Role role) {
+        return userRepository.save(new User(name, name + "@example.com", "unused", role, "Perf", "User"));
+    }
+}
\ No newline at end of file
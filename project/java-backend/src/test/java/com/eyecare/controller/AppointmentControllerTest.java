@@ -0,0 +1,109 @@
+package com.eyecare.controller;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.PatientRepository;
+import com.eyecare.repository.UserRepository;
+import com.eyecare.security.JwtUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A missing or non-positive duration must be turned away as a bad request before booking
+ * does arithmetic on it, rather than surfacing as a server error.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AppointmentControllerTest {
+    
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    private String bearer;
+    private Patient patient;
+    private Doctor doctor;
+    
+    @BeforeEach
+    void setUp() {
+        bearer = "Bearer " + jwtUtils.generateToken(userRepository.findByUsername("admin").orElseThrow());
+        patient = patientRepository.save(new Patient(user(User.Role.PATIENT)));
+        doctor = doctorRepository.save(new Doctor(user(User.Role.DOCTOR)));
+    }
+    
+    @Test
+    void createRejectsANullDuration() throws Exception {
+        String body = "{\"patientId\":" + patient.getId() + ",\"doctorId\":" + doctor.getId()
+                + ",\"appointmentDate\":\"2031-03-03\",\"appointmentTime\":\"10:00\",\"duration\":null}";
+        
+        mockMvc.perform(post("/appointments").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void updateRejectsANullOrNonPositiveDuration() throws Exception {
+        Appointment appointment = appointmentRepository.save(
+                new Appointment(patient, doctor, LocalDate.of(2031, 3, 4), LocalTime.of(10, 0)));
+        
+        for (String duration : new String[] {"null", "0", "-15", "\"30\""}) {
+            mockMvc.perform(put("/appointments/" + appointment.getId()).header(HttpHeaders.AUTHORIZATION, bearer)
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"duration\":" + duration + "}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("Duration must be a positive number of minutes"));
+        }
+        assertThat(appointmentRepository.findById(appointment.getId()).orElseThrow().getDuration()).isEqualTo(30);
+    }
+    
+    @Test
+    void updateAcceptsAPositiveDuration() throws Exception {
+        Appointment appointment = appointmentRepository.save(
+                new Appointment(patient, doctor, LocalDate.of(2031, 3, 5), LocalTime.of(10, 0)));
+        
+        mockMvc.perform(put("/appointments/" + appointment.getId()).header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"duration\":45}"))
+                .andExpect(status().isOk());
+        assertThat(appointmentRepository.findById(appointment.getId()).orElseThrow().getDuration()).isEqualTo(45);
+    }
+    
+    private User user(User.Role role) {
+        String name = "appointmentctl" + SEQUENCE.incrementAndGet();
+        return userRepository.save(new User(name, name + "@example.com", "unused", role, "Test", "User"));
+    }
+}
\ No newline at end of file
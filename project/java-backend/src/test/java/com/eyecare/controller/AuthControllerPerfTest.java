@@ -0,0 +1,102 @@
+package com.eyecare.controller;
+
+import com.eyecare.EyeCareApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Logins per second over HTTP at BCrypt strengths 8, 10 and 12. Each strength gets its own
+ * application on a random port and its own database, seeded at that strength, and is loaded
+ * with twice as many clients as the hashing pool has threads.
+ */
+@Tag("perf")
+class AuthControllerPerfTest {
+    
+    private static final int[] STRENGTHS = { 8, 10, 12 };
+    private static final long WARM_UP_MILLIS = 3000;
+    private static final long MEASURE_MILLIS = 5000;
+    private static final String ADMIN_LOGIN = "{\"username\":\"admin\",\"password\":\"admin123\"}";
+    
+    @Test
+    void loginThroughputFallsWithBcryptStrength() throws Exception {
+        Map<Integer, Double> rates = new LinkedHashMap<>();
+        for (int strength : STRENGTHS) {
+            rates.put(strength, loginsPerSecond(strength));
+        }
+        rates.forEach((strength, rate) -> System.out.printf("bcrypt strength %d: %.1f logins/s%n", strength, rate));
+        
+        // Two steps of strength quadruple the hashing work, but at low strength the fixed cost of
+        // HTTP, the user lookup and signing the token takes a large share, so the bound is loose
+        assertThat(rates.get(8)).isGreaterThan(rates.get(10) * 1.3);
+        assertThat(rates.get(10)).isGreaterThan(rates.get(12) * 1.3);
+    }
+    
+    private double loginsPerSecond(int strength) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EyeCareApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:login-perf-" + strength,
+                "--security.password.bcrypt-strength=" + strength,
+                "--security.login.throttle.username.burst=1000000",
+                "--security.login.throttle.username.per-minute=1000000",
+                "--security.login.throttle.ip.per-minute=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.eyecare=INFO",
+                "--logging.level.org.springframework.security=INFO")) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ADMIN_LOGIN))
+                    .build();
+            int clients = Runtime.getRuntime().availableProcessors() * 2;
+            
+            run(login, clients, WARM_UP_MILLIS);
+            long logins = run(login, clients, MEASURE_MILLIS);
+            return logins * 1000.0 / MEASURE_MILLIS;
+        }
+    }
+    
+    /** Logs in from every client back to back until the time is up; returns the 200 responses. */
+    private static long run(HttpRequest login, int clients, long millis) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(pool.submit(() -> {
+                    long ok = 0;
+                    while (System.nanoTime() < deadline) {
+                        if (client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.eyecare.controller;
+
+import com.eyecare.security.PasswordHashingExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Login runs BCrypt on a one-thread pool with a one-slot queue here, so two parked tasks
+ * saturate it and the next login must be turned away rather than wait.
+ */
+@SpringBootTest(properties = {
+        "security.password.hashing.threads=1",
+        "security.password.hashing.queue-capacity=1",
+        "security.password.hashing.retry-after-seconds=3"
+})
+@AutoConfigureMockMvc
+class AuthControllerTest {
+    
+    private static final String ADMIN_LOGIN = "{\"username\":\"admin\",\"password\":\"admin123\"}";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+    
+    @Test
+    void loginSucceedsWhileThePoolHasRoom() throws Exception {
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(ADMIN_LOGIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+    }
+    
+    @Test
+    void loginAnswers503WithRetryAfterWhenThePoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        List<Future<?>> parked = new ArrayList<>();
+        try {
+            // One task occupies the only worker, the other fills the queue
+            for (int i = 0; i < 2; i++) {
+                parked.add(callers.submit(() -> hashingExecutor.execute(() -> release.await(10, TimeUnit.SECONDS))));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((hashingExecutor.getActiveCount() < 1 || hashingExecutor.getQueueSize() < 1)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            long rejectedBefore = hashingExecutor.getRejected();
+            
+            mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(ADMIN_LOGIN))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "3"));
+            assertThat(hashingExecutor.getRejected()).isEqualTo(rejectedBefore + 1);
+        } finally {
+            release.countDown();
+            for (Future<?> future : parked) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            callers.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
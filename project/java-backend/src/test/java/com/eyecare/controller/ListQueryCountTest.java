@@ -0,0 +1,147 @@
+package com.eyecare.controller;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.MedicalRecord;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.MedicalRecordRepository;
+import com.eyecare.repository.PatientRepository;
+import com.eyecare.repository.UserRepository;
+import com.eyecare.security.JwtUtils;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * List pages are read through one projection query, so the number of statements a request
+ * issues must not grow with the rows on the page. Each row here belongs to its own patient,
+ * so a lazy association touched per row would show up as extra statements.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.eyecare.controller.ListQueryCountTest$StatementCounter")
+@AutoConfigureMockMvc
+class ListQueryCountTest {
+    
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    private String bearer;
+    
+    @BeforeEach
+    void setUp() {
+        bearer = "Bearer " + jwtUtils.generateToken(userRepository.findByUsername("admin").orElseThrow());
+    }
+    
+    @Test
+    void appointmentListRunsTheSameStatementsForOneRowAsForMany() throws Exception {
+        Doctor few = doctorWithAppointments(1);
+        Doctor many = doctorWithAppointments(40);
+        
+        int one = statementsFor("/appointments?doctorId=" + few.getId() + "&from=" + FROM + "&to=" + FROM.plusDays(60), 1);
+        int forty = statementsFor("/appointments?doctorId=" + many.getId() + "&from=" + FROM + "&to=" + FROM.plusDays(60), 40);
+        int sorted = statementsFor("/appointments?doctorId=" + many.getId() + "&sort=appointmentDate,desc", 40);
+        
+        assertThat(one).isEqualTo(1);
+        assertThat(forty).isEqualTo(1);
+        assertThat(sorted).isEqualTo(1);
+    }
+    
+    @Test
+    void medicalRecordListRunsTheSameStatementsForOneRowAsForMany() throws Exception {
+        Doctor few = doctorWithRecords(1);
+        Doctor many = doctorWithRecords(40);
+        
+        int one = statementsFor("/medical-records?doctorId=" + few.getId(), 1);
+        int forty = statementsFor("/medical-records?doctorId=" + many.getId(), 40);
+        int paged = statementsFor("/medical-records?doctorId=" + many.getId() + "&limit=10", 10);
+        
+        assertThat(one).isEqualTo(1);
+        assertThat(forty).isEqualTo(1);
+        assertThat(paged).isEqualTo(1);
+    }
+    
+    private int statementsFor(String url, int expectedRows) throws Exception {
+        StatementCounter.COUNT.get().set(0);
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedRows));
+        return StatementCounter.COUNT.get().get();
+    }
+    
+    private Doctor doctorWithAppointments(int count) {
+        Doctor doctor = doctorRepository.save(new Doctor(user(User.Role.DOCTOR)));
+        for (int i = 0; i < count; i++) {
+            Appointment appointment = new Appointment(patient(), doctor, FROM.plusDays(i), LocalTime.of(9, 0));
+            appointmentRepository.save(appointment);
+        }
+        return doctor;
+    }
+    
+    private Doctor doctorWithRecords(int count) {
+        Doctor doctor = doctorRepository.save(new Doctor(user(User.Role.DOCTOR)));
+        for (int i = 0; i < count; i++) {
+            MedicalRecord record = new MedicalRecord(patient(), doctor, FROM.plusDays(i));
+            record.setDiagnosis("Diagnosis " + i);
+            medicalRecordRepository.save(record);
+        }
+        return doctor;
+    }
+    
+    private Patient patient() {
+        return patientRepository.save(new Patient(user(User.Role.PATIENT)));
+    }
+    
+    private User user(User.Role role) {
+        String name = "listed" + SEQUENCE.incrementAndGet();
+        return userRepository.save(new User(name, name + "@example.com", "unused", role, "Test", "User"));
+    }
+    
+    /** Counts the statements Hibernate prepares on the calling thread. */
+    public static class StatementCounter implements StatementInspector {
+        
+        static final ThreadLocal<AtomicInteger> COUNT = ThreadLocal.withInitial(AtomicInteger::new);
+        
+        @Override
+        public String inspect(String sql) {
+            COUNT.get().incrementAndGet();
+            return sql;
+        }
+    }
+}
\ No newline at end of file
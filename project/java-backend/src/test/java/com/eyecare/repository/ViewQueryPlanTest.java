@@ -0,0 +1,212 @@
+package com.eyecare.repository;
+
+import com.eyecare.dto.AppointmentCursor;
+import com.eyecare.dto.MedicalRecordCursor;
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs H2 {@code EXPLAIN} on the SQL the view queries actually generate, and checks that
+ * each filter combination seeks on the composite index built for it.
+ *
+ * <p>H2 also gives every foreign key its own single-column index. With nothing but an id
+ * filter that index costs the same as the composite one, so those cases only require a
+ * seek on the id. The tables are seeded and analyzed first, since on empty tables every
+ * index costs the same and the choice between them is arbitrary. H2 keeps selectivity in
+ * whole percent, so there are enough doctors for theirs to beat the four statuses.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.eyecare.repository.ViewQueryPlanTest$LastStatement")
+class ViewQueryPlanTest {
+    
+    private static final Pattern DRIVING_INDEX = Pattern.compile("FROM \"PUBLIC\"\\.\"\\w+\" \"\\w+\"\\s*/\\* PUBLIC\\.(\\w+)(?:: ([^*]*))?\\*/");
+    private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+    private static final LocalDate TO = FROM.plusDays(30);
+    private static final int DOCTORS = 200;
+    private static final int PATIENTS = 400;
+    private static final int ROWS = 4000;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    private static boolean seeded;
+    
+    @BeforeEach
+    void setUp() {
+        if (seeded) {
+            return;
+        }
+        // Many doctors and patients, four statuses and a year of dates
+        List<Long> doctorIds = new ArrayList<>();
+        List<Long> patientIds = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctorIds.add(doctorRepository.save(new Doctor(user("plandoctor" + i, User.Role.DOCTOR))).getId());
+        }
+        for (int i = 0; i < PATIENTS; i++) {
+            patientIds.add(patientRepository.save(new Patient(user("planpatient" + i, User.Role.PATIENT))).getId());
+        }
+        Appointment.Status[] statuses = Appointment.Status.values();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> appointments = new ArrayList<>();
+        List<Object[]> records = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            long id = 1_000_000L + i;
+            Long doctorId = doctorIds.get(i % DOCTORS);
+            Long patientId = patientIds.get((i * 7) % PATIENTS);
+            Date day = Date.valueOf(FROM.minusDays(180).plusDays(i % 365));
+            appointments.add(new Object[] { id, patientId, doctorId, day, Time.valueOf(LocalTime.of(8 + i % 9, 0)),
+                    30, statuses[i % statuses.length].name(), now, now });
+            records.add(new Object[] { id, patientId, doctorId, day, (short) (10 + i % 20), now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointments (id, patient_id, doctor_id, appointment_date, appointment_time, "
+                + "duration, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", appointments);
+        jdbcTemplate.batchUpdate("INSERT INTO medical_records (id, patient_id, doctor_id, visit_date, iop_max, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", records);
+        jdbcTemplate.execute("ANALYZE");
+        seeded = true;
+    }
+    
+    @Test
+    void appointmentFiltersSeekOnTheirCompositeIndex() {
+        appointmentRepository.findViewsAfter(FROM, TO, 1L, null, null, null, 10);
+        assertPlan("IDX_APPOINTMENTS_DOCTOR_DATE_TIME", "DOCTOR_ID = ?", "APPOINTMENT_DATE >= ?", "APPOINTMENT_DATE <= ?");
+        
+        appointmentRepository.findViewsAfter(FROM, TO, 1L, null, Appointment.Status.SCHEDULED, null, 10);
+        assertPlan("IDX_APPOINTMENTS_DOCTOR_DATE_TIME", "DOCTOR_ID = ?", "APPOINTMENT_DATE >= ?");
+        
+        appointmentRepository.findViewsAfter(FROM, FROM, 1L, null, Appointment.Status.SCHEDULED, null, 10);
+        assertPlan("IDX_APPOINTMENTS_DOCTOR_DATE_TIME", "DOCTOR_ID = ?", "APPOINTMENT_DATE = ?");
+        
+        appointmentRepository.findViewsAfter(FROM, TO, null, 1L, null, null, 10);
+        assertPlan("IDX_APPOINTMENTS_PATIENT_DATE", "PATIENT_ID = ?", "APPOINTMENT_DATE >= ?");
+        
+        appointmentRepository.findViewsAfter(FROM, TO, null, null, Appointment.Status.SCHEDULED, null, 10);
+        assertPlan("IDX_APPOINTMENTS_STATUS_DATE", "STATUS = ?", "APPOINTMENT_DATE >= ?");
+        
+        appointmentRepository.findViews(null, TO, null, null, Appointment.Status.CANCELLED, Sort.by(Sort.Direction.DESC, "appointmentDate"), 10);
+        assertPlan("IDX_APPOINTMENTS_STATUS_DATE", "STATUS = ?", "APPOINTMENT_DATE <= ?");
+    }
+    
+    @Test
+    void appointmentCursorBoundsTheDateIndex() {
+        AppointmentCursor after = new AppointmentCursor(FROM, LocalTime.of(9, 0), 5L);
+        
+        appointmentRepository.findViewsAfter(null, null, 1L, null, null, after, 10);
+        assertPlan("IDX_APPOINTMENTS_DOCTOR_DATE_TIME", "DOCTOR_ID = ?", "APPOINTMENT_DATE >= ?");
+        
+        appointmentRepository.findViewsAfter(null, null, null, 1L, null, after, 10);
+        assertPlan("IDX_APPOINTMENTS_PATIENT_DATE", "PATIENT_ID = ?", "APPOINTMENT_DATE >= ?");
+    }
+    
+    @Test
+    void appointmentIdFiltersAloneSeekOnTheId() {
+        appointmentRepository.findViewsAfter(null, null, 1L, null, null, null, 10);
+        assertSeek("DOCTOR_ID = ?");
+        
+        appointmentRepository.findViewsAfter(null, null, null, 1L, null, null, 10);
+        assertSeek("PATIENT_ID = ?");
+    }
+    
+    @Test
+    void medicalRecordFiltersSeekOnTheirCompositeIndex() {
+        medicalRecordRepository.findViewsAfter(1L, null, FROM, TO, null, null, 10);
+        assertPlan("IDX_MEDICAL_RECORDS_PATIENT_VISIT", "PATIENT_ID = ?", "VISIT_DATE >= ?", "VISIT_DATE <= ?");
+        
+        medicalRecordRepository.findViewsAfter(null, 1L, FROM, null, null, null, 10);
+        assertPlan("IDX_MEDICAL_RECORDS_DOCTOR_VISIT", "DOCTOR_ID = ?", "VISIT_DATE >= ?");
+        
+        medicalRecordRepository.findViews(null, 1L, null, TO, null, Sort.by("visitDate"), 10);
+        assertPlan("IDX_MEDICAL_RECORDS_DOCTOR_VISIT", "DOCTOR_ID = ?", "VISIT_DATE <= ?");
+    }
+    
+    @Test
+    void medicalRecordCursorBoundsTheVisitIndex() {
+        MedicalRecordCursor after = new MedicalRecordCursor(TO, 5L);
+        
+        medicalRecordRepository.findViewsAfter(1L, null, null, null, null, after, 10);
+        assertPlan("IDX_MEDICAL_RECORDS_PATIENT_VISIT", "PATIENT_ID = ?", "VISIT_DATE <= ?");
+        
+        medicalRecordRepository.findViewsAfter(null, 1L, null, null, null, after, 10);
+        assertPlan("IDX_MEDICAL_RECORDS_DOCTOR_VISIT", "DOCTOR_ID = ?", "VISIT_DATE <= ?");
+    }
+    
+    @Test
+    void medicalRecordIdFiltersAloneSeekOnTheId() {
+        medicalRecordRepository.findViewsAfter(1L, null, null, null, null, null, 10);
+        assertSeek("PATIENT_ID = ?");
+        
+        medicalRecordRepository.findViewsAfter(null, 1L, null, null, null, null, 10);
+        assertSeek("DOCTOR_ID = ?");
+    }
+    
+    private void assertPlan(String index, String... conditions) {
+        Matcher plan = explainLastStatement();
+        assertThat(plan.group(1)).as("index").isEqualTo(index);
+        assertThat(plan.group(2)).as("index conditions").contains(conditions);
+    }
+    
+    private void assertSeek(String condition) {
+        Matcher plan = explainLastStatement();
+        assertThat(plan.group(1)).as("index").doesNotStartWith("PRIMARY_KEY");
+        assertThat(plan.group(2)).as("index conditions").contains(condition);
+    }
+    
+    private Matcher explainLastStatement() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + LastStatement.SQL.get(), String.class);
+        Matcher matcher = DRIVING_INDEX.matcher(plan);
+        assertThat(matcher.find()).as(plan).isTrue();
+        return matcher;
+    }
+    
+    private User user(String name, User.Role role) {
+        return userRepository.save(new User(name, name + "@example.com", "unused", role, "Plan", "User"));
+    }
+    
+    /** Remembers the last statement Hibernate prepared on the calling thread. */
+    public static class LastStatement implements StatementInspector {
+        
+        static final ThreadLocal<String> SQL = new ThreadLocal<>();
+        
+        @Override
+        public String inspect(String sql) {
+            SQL.set(sql);
+            return sql;
+        }
+    }
+}
\ No newline at end of file
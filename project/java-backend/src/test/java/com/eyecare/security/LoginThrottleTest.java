@@ -0,0 +1,157 @@
+package com.eyecare.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+    
+    private static final int THREADS = 64;
+    
+    @Test
+    void allowsTheBurstThenRejectsWithTheWaitUntilTheNextToken() {
+        LoginThrottle throttle = new LoginThrottle(3, 1, 0, 0);
+        
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isZero();
+        }
+        long wait = throttle.tryAcquire("alice", "10.0.0.1");
+        
+        assertThat(wait).isPositive().isLessThanOrEqualTo(60_000);
+        assertThat(throttle.getAllowed()).isEqualTo(3);
+        assertThat(throttle.getRejectedByUsername()).isEqualTo(1);
+    }
+    
+    @Test
+    void refillsOneTokenPerInterval() throws InterruptedException {
+        // 600 per minute is one token every 100 ms
+        LoginThrottle throttle = new LoginThrottle(1, 600, 0, 0);
+        
+        assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isZero();
+        assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isPositive();
+        Thread.sleep(150);
+        assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isZero();
+    }
+    
+    @Test
+    void usernamesAreLimitedIndependentlyAndCaseInsensitively() {
+        LoginThrottle throttle = new LoginThrottle(1, 1, 0, 0);
+        
+        assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isZero();
+        assertThat(throttle.tryAcquire(" Alice ", "10.0.0.2")).isPositive();
+        assertThat(throttle.tryAcquire("bob", "10.0.0.1")).isZero();
+    }
+    
+    @Test
+    void ipLimitSpansUsernamesAndCanBeDisabled() {
+        LoginThrottle limited = new LoginThrottle(100, 100, 2, 1);
+        assertThat(limited.tryAcquire("a", "10.0.0.1")).isZero();
+        assertThat(limited.tryAcquire("b", "10.0.0.1")).isZero();
+        assertThat(limited.tryAcquire("c", "10.0.0.1")).isPositive();
+        assertThat(limited.tryAcquire("c", "10.0.0.2")).isZero();
+        assertThat(limited.getRejectedByIp()).isEqualTo(1);
+        
+        LoginThrottle unlimited = new LoginThrottle(100, 100, 2, 0);
+        for (int i = 0; i < 50; i++) {
+            assertThat(unlimited.tryAcquire("user" + i, "10.0.0.1")).isZero();
+        }
+    }
+    
+    @Test
+    void sweepDropsOnlyIdleBuckets() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(1, 600, 0, 0);
+        throttle.tryAcquire("idle", "10.0.0.1");
+        Thread.sleep(150);
+        throttle.tryAcquire("busy", "10.0.0.1");
+        
+        throttle.sweep();
+        
+        assertThat(throttle.size()).isEqualTo(1);
+        assertThat(throttle.tryAcquire("busy", "10.0.0.1")).isPositive();
+    }
+    
+    @Test
+    void admitsExactlyTheBurstAcrossThreadsWhileSweepsRun() throws Exception {
+        int burst = 5;
+        for (int round = 0; round < 50; round++) {
+            LoginThrottle throttle = new LoginThrottle(burst, 1, 0, 0);
+            AtomicBoolean sweeping = new AtomicBoolean(true);
+            Thread sweeper = new Thread(() -> {
+                while (sweeping.get()) {
+                    throttle.sweep();
+                }
+            });
+            sweeper.start();
+            
+            AtomicInteger admitted = new AtomicInteger();
+            runConcurrently(thread -> {
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    if (throttle.tryAcquire("shared", "10.0.0." + thread) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            sweeping.set(false);
+            sweeper.join();
+            
+            // Admission must stay exact while buckets are being swept underneath the attempts
+            assertThat(admitted.get()).isEqualTo(burst);
+            assertThat(throttle.getAllowed()).isEqualTo(burst);
+        }
+    }
+    
+    @Test
+    void distinctUsernamesDoNotInterfereUnderContention() throws Exception {
+        LoginThrottle throttle = new LoginThrottle(10, 1, 0, 0);
+        AtomicInteger admitted = new AtomicInteger();
+        
+        runConcurrently(thread -> {
+            for (int attempt = 0; attempt < 10; attempt++) {
+                if (throttle.tryAcquire("user" + thread, "10.0.0.1") == 0) {
+                    admitted.incrementAndGet();
+                }
+            }
+        });
+        
+        assertThat(admitted.get()).isEqualTo(THREADS * 10);
+        assertThat(throttle.getRejectedByUsername()).isZero();
+        assertThat(throttle.size()).isEqualTo(THREADS);
+    }
+    
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.eyecare.service;
+
+import com.eyecare.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentIntervalIndexTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+    
+    private AppointmentRepository appointmentRepository;
+    private AppointmentIntervalIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        index = new AppointmentIntervalIndex();
+        ReflectionTestUtils.setField(index, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(index, "maxDays", 100);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+    }
+    
+    @Test
+    void findsOverlapsAndIgnoresTheExcludedAppointment() {
+        stored(row(1L, "10:00", 30));
+        
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 15), 30, null)).isTrue();
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 30), 30, null)).isFalse();
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(9, 30), 30, null)).isFalse();
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 15), 30, 1L)).isFalse();
+    }
+    
+    @Test
+    void servesALoadedDayFromMemoryUntilItExpires() {
+        stored(row(1L, "10:00", 30));
+        index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null);
+        
+        // Freed on another node; this node still answers from the loaded day
+        stored();
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null)).isTrue();
+        verify(appointmentRepository, times(1)).findActiveIntervals(7L, DAY);
+    }
+    
+    @Test
+    void reloadsAnExpiredDay() {
+        ReflectionTestUtils.setField(index, "ttlSeconds", 0L);
+        stored(row(1L, "10:00", 30));
+        index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null);
+        
+        stored();
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null)).isFalse();
+        verify(appointmentRepository, times(2)).findActiveIntervals(7L, DAY);
+    }
+    
+    @Test
+    void invalidateForcesAReload() {
+        stored(row(1L, "10:00", 30));
+        index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null);
+        
+        stored();
+        index.invalidate(7L, DAY);
+        assertThat(index.hasOverlap(7L, DAY, LocalTime.of(10, 0), 30, null)).isFalse();
+    }
+    
+    private void stored(Object[]... rows) {
+        when(appointmentRepository.findActiveIntervals(eq(7L), any())).thenReturn(new ArrayList<>(List.of(rows)));
+    }
+    
+    private static Object[] row(Long id, String time, int duration) {
+        return new Object[] { id, LocalTime.parse(time), duration };
+    }
+}
\ No newline at end of file
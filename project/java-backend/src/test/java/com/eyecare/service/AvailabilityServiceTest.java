@@ -0,0 +1,134 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Doctor;
+import com.eyecare.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailabilityServiceTest {
+    
+    // A Monday well clear of today, so no slots are dropped for having already started
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    
+    private AppointmentRepository appointmentRepository;
+    private AvailabilityService availabilityService;
+    
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        availabilityService = new AvailabilityService(2);
+        ReflectionTestUtils.setField(availabilityService, "appointmentRepository", appointmentRepository);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        availabilityService.shutdown();
+    }
+    
+    @Test
+    void packsSlotsBackToBackFromTheStartOfTheDay() {
+        Doctor doctor = doctor(1L, "Mon-Fri", "09:00-12:00");
+        booked(1L);
+        
+        assertThat(slotsOn(doctor, MONDAY, 45)).containsExactly(times("09:00", "09:45", "10:30", "11:15"));
+    }
+    
+    @Test
+    void packsAgainstTheEndOfAnExistingBooking() {
+        Doctor doctor = doctor(1L, "Mon-Fri", "09:00-12:00");
+        // 09:10-09:30 leaves a 10 minute gap before it, too short for a 30 minute slot
+        booked(1L, row(MONDAY, "09:10", 20));
+        
+        assertThat(slotsOn(doctor, MONDAY, 30)).containsExactly(times("09:30", "10:00", "10:30", "11:00", "11:30"));
+    }
+    
+    @Test
+    void roundsOffGridBookingsOutToWholeSlots() {
+        Doctor doctor = doctor(1L, "Mon", "09:00-10:00");
+        // 09:07-09:22 blocks the 5 minute slots from 09:05 up to 09:25
+        booked(1L, row(MONDAY, "09:07", 15));
+        
+        assertThat(slotsOn(doctor, MONDAY, 5)).containsExactly(times(
+                "09:00", "09:25", "09:30", "09:35", "09:40", "09:45", "09:50", "09:55"));
+    }
+    
+    @Test
+    void respectsSplitHoursAndNonWorkingDays() {
+        Doctor doctor = doctor(1L, "Mon,Wed", "09:00-10:00,13:00-14:00");
+        booked(1L);
+        
+        Map<LocalDate, List<LocalTime>> slots = availabilityService.findFreeSlots(doctor, MONDAY, MONDAY.plusDays(6), 60);
+        
+        assertThat(slots).containsOnlyKeys(MONDAY, MONDAY.plusDays(2));
+        assertThat(slots.get(MONDAY)).containsExactly(times("09:00", "13:00"));
+    }
+    
+    @Test
+    void fullyBookedDaysAreLeftOut() {
+        Doctor doctor = doctor(1L, "Mon-Tue", "09:00-10:00");
+        booked(1L, row(MONDAY, "09:00", 60));
+        
+        Map<LocalDate, List<LocalTime>> slots = availabilityService.findFreeSlots(doctor, MONDAY, MONDAY.plusDays(1), 30);
+        
+        assertThat(slots).containsOnlyKeys(MONDAY.plusDays(1));
+    }
+    
+    @Test
+    void fansOutAcrossDoctorsAndKeepsTheirOrder() {
+        Doctor first = doctor(1L, "Mon", "09:00-10:00");
+        Doctor second = doctor(2L, "Mon", "14:00-15:00");
+        booked(1L, row(MONDAY, "09:00", 30));
+        booked(2L);
+        
+        Map<Doctor, Map<LocalDate, List<LocalTime>>> slots = availabilityService.findFreeSlots(List.of(first, second), MONDAY, MONDAY, 30);
+        
+        assertThat(slots.keySet()).containsExactly(first, second);
+        assertThat(slots.get(first).get(MONDAY)).containsExactly(times("09:30"));
+        assertThat(slots.get(second).get(MONDAY)).containsExactly(times("14:00", "14:30"));
+    }
+    
+    private List<LocalTime> slotsOn(Doctor doctor, LocalDate date, int duration) {
+        return availabilityService.findFreeSlots(doctor, date, date, duration).getOrDefault(date, List.of());
+    }
+    
+    private void booked(Long doctorId, Object[]... rows) {
+        when(appointmentRepository.findActiveIntervalsBetween(eq(doctorId), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(rows)));
+    }
+    
+    private static Object[] row(LocalDate date, String time, int duration) {
+        return new Object[] { date, LocalTime.parse(time), duration };
+    }
+    
+    private static Doctor doctor(Long id, String days, String hours) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setAvailableDays(days);
+        doctor.setAvailableHours(hours);
+        return doctor;
+    }
+    
+    private static LocalTime[] times(String... values) {
+        LocalTime[] times = new LocalTime[values.length];
+        for (int i = 0; i < values.length; i++) {
+            times[i] = LocalTime.parse(values[i]);
+        }
+        return times;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Appointment;
+import com.eyecare.model.Doctor;
+import com.eyecare.model.Patient;
+import com.eyecare.model.User;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.PatientRepository;
+import com.eyecare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Races many bookings through the striped lock and doctor row lock against the real
+ * database, and checks what ends up stored rather than what each caller was told.
+ */
+@SpringBootTest
+class BookingServiceTest {
+    
+    private static final int THREADS = 64;
+    private static final int BOOKINGS_PER_DOCTOR = 48;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Patient patient;
+    private LocalDate date;
+    
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.save(new Patient(user(User.Role.PATIENT)));
+        // Every test books its own day, so tests sharing the context never see each other's rows
+        date = LocalDate.now().plusYears(1).plusDays(SEQUENCE.incrementAndGet());
+    }
+    
+    @Test
+    void onlyOneOfManyIdenticalBookingsWins() throws Exception {
+        Doctor doctor = doctor();
+        long conflictsBefore = bookingService.getConflicts();
+        
+        List<Boolean> outcomes = race(i -> appointment(doctor, LocalTime.of(10, 0), 30));
+        
+        assertThat(outcomes).containsOnlyOnce(true);
+        assertThat(bookingService.getConflicts() - conflictsBefore).isEqualTo(THREADS - 1);
+        assertThat(appointmentRepository.findActiveIntervals(doctor.getId(), date)).hasSize(1);
+    }
+    
+    @Test
+    void overlappingBookingsAtStaggeredTimesNeverDoubleBook() throws Exception {
+        Doctor doctor = doctor();
+        
+        // 30 minute bookings starting a minute apart, so each one overlaps its neighbours
+        List<Boolean> outcomes = race(i -> appointment(doctor, LocalTime.of(9, 0).plusMinutes(i), 30));
+        
+        List<Object[]> stored = new ArrayList<>(appointmentRepository.findActiveIntervals(doctor.getId(), date));
+        assertThat(stored).hasSize((int) outcomes.stream().filter(won -> won).count()).isNotEmpty();
+        stored.sort(Comparator.comparing(row -> (LocalTime) row[1]));
+        for (int i = 1; i < stored.size(); i++) {
+            LocalTime previousEnd = ((LocalTime) stored.get(i - 1)[1]).plusMinutes((Integer) stored.get(i - 1)[2]);
+            assertThat((LocalTime) stored.get(i)[1]).isAfterOrEqualTo(previousEnd);
+        }
+    }
+    
+    @Test
+    void disjointBookingsAllSucceedInParallel() throws Exception {
+        Doctor first = doctor();
+        Doctor second = doctor();
+        
+        // Half the threads per doctor, each in its own 15 minute slot
+        List<Boolean> outcomes = race(i -> appointment(i % 2 == 0 ? first : second,
+                LocalTime.of(8, 0).plusMinutes(15L * (i / 2)), 15));
+        
+        assertThat(outcomes).containsOnly(true);
+        assertThat(appointmentRepository.findActiveIntervals(first.getId(), date)).hasSize(THREADS / 2);
+        assertThat(appointmentRepository.findActiveIntervals(second.getId(), date)).hasSize(THREADS / 2);
+    }
+    
+    @Test
+    @Tag("perf")
+    void disjointDoctorsBookFasterAcrossThreadsThanOnOne() throws Exception {
+        int doctors = Math.max(4, Runtime.getRuntime().availableProcessors());
+        bookAll(doctors(doctors), 1);
+        
+        double serial = bookAll(doctors(doctors), 1);
+        double parallel = bookAll(doctors(doctors), doctors);
+        System.out.printf("%d doctors: %.0f bookings/s on one thread, %.0f bookings/s across %d threads%n",
+                doctors, serial, parallel, doctors);
+        
+        // A global lock would hold the threaded run below the single thread once contention
+        // costs are added. Scaling beyond that depends on cores, so the bound stays loose.
+        assertThat(parallel).isGreaterThan(serial * 0.8);
+    }
+    
+    @Test
+    void rescheduleMayOverlapTheAppointmentsOwnOldSlot() {
+        Doctor doctor = doctor();
+        Appointment booked = bookingService.book(appointment(doctor, LocalTime.of(14, 0), 30));
+        bookingService.book(appointment(doctor, LocalTime.of(15, 0), 30));
+        
+        booked.setAppointmentTime(LocalTime.of(14, 15));
+        bookingService.reschedule(booked);
+        
+        booked.setAppointmentTime(LocalTime.of(14, 45));
+        assertThatThrownBy(() -> bookingService.reschedule(booked)).isInstanceOf(BookingConflictException.class);
+    }
+    
+    @Test
+    void cancelledBookingsFreeTheirSlot() {
+        Doctor doctor = doctor();
+        Appointment booked = bookingService.book(appointment(doctor, LocalTime.of(11, 0), 30));
+        
+        booked.setStatus(Appointment.Status.CANCELLED);
+        bookingService.reschedule(booked);
+        
+        assertThat(bookingService.book(appointment(doctor, LocalTime.of(11, 0), 30)).getId()).isNotNull();
+    }
+    
+    @Test
+    void slotFreedBehindTheIndexCanBeBookedAgain() {
+        Doctor doctor = doctor();
+        Appointment booked = bookingService.book(appointment(doctor, LocalTime.of(13, 0), 30));
+        long staleBefore = bookingService.getStaleHints();
+        
+        // Cancelled straight in the database, as another node would, so this node's index still holds it
+        booked.setStatus(Appointment.Status.CANCELLED);
+        appointmentRepository.save(booked);
+        
+        assertThat(bookingService.book(appointment(doctor, LocalTime.of(13, 0), 30)).getId()).isNotNull();
+        assertThat(bookingService.getStaleHints() - staleBefore).isEqualTo(1);
+    }
+    
+    private List<Boolean> race(AppointmentFactory factory) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Appointment appointment = factory.create(i);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.book(appointment);
+                        return true;
+                    } catch (BookingConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Boolean> outcomes = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private double bookAll(List<Doctor> doctors, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long started = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                futures.add(pool.submit(() -> {
+                    for (int d = first; d < doctors.size(); d += threads) {
+                        for (int i = 0; i < BOOKINGS_PER_DOCTOR; i++) {
+                            bookingService.book(appointment(doctors.get(d), LocalTime.of(8, 0).plusMinutes(10L * i), 10));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+            return doctors.size() * BOOKINGS_PER_DOCTOR / ((System.nanoTime() - started) / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private List<Doctor> doctors(int count) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            doctors.add(doctor());
+        }
+        return doctors;
+    }
+    
+    private Appointment appointment(Doctor doctor, LocalTime time, int duration) {
+        Appointment appointment = new Appointment(patient, doctor, date, time);
+        appointment.setDuration(duration);
+        return appointment;
+    }
+    
+    private Doctor doctor() {
+        return doctorRepository.save(new Doctor(user(User.Role.DOCTOR)));
+    }
+    
+    private User user(User.Role role) {
+        String name = "booking" + SEQUENCE.incrementAndGet();
+        return userRepository.save(new User(name, name + "@example.com", "unused", role, "Test", "User"));
+    }
+    
+    private interface AppointmentFactory {
+        Appointment create(int index);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.eyecare.service;
+
+import com.eyecare.model.Doctor;
+import com.eyecare.model.MedicalRecord;
+import com.eyecare.model.Patient;
+import com.eyecare.repository.MedicalRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the index against a mocked repository whose rows carry their own change time, so a
+ * restart can be checked to re-read only what changed after the last flush.
+ */
+class ClinicalNoteIndexTest {
+    
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2020, 1, 1, 0, 0);
+    
+    @TempDir
+    Path directory;
+    
+    private final Map<Long, Object[]> rows = new TreeMap<>();
+    private final Map<Long, LocalDateTime> changedAt = new TreeMap<>();
+    private MedicalRecordRepository medicalRecordRepository;
+    
+    @BeforeEach
+    void setUp() {
+        medicalRecordRepository = mock(MedicalRecordRepository.class);
+        when(medicalRecordRepository.count()).thenAnswer(invocation -> (long) rows.size());
+        when(medicalRecordRepository.findNoteFieldsAfter(any(), any(), any())).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            LocalDateTime since = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            List<Object[]> batch = new ArrayList<>();
+            for (Map.Entry<Long, Object[]> row : rows.entrySet()) {
+                if (row.getKey() > afterId && changedAt.get(row.getKey()).isAfter(since) && batch.size() < page.getPageSize()) {
+                    batch.add(row.getValue());
+                }
+            }
+            return batch;
+        });
+    }
+    
+    @Test
+    void flushedSegmentsAreWrittenAndReopened() {
+        stored(1L, "cataract", "phacoemulsification planned", null);
+        stored(2L, "glaucoma", "timolol drops", null);
+        stored(3L, "cataract", "observe", null);
+        ClinicalNoteIndex index = open(2, 8);
+        assertThat(index.segmentCount()).isEqualTo(2);
+        assertThat(index.bufferedCount()).isZero();
+        index.close();
+        
+        assertThat(directory.resolve("manifest.properties")).exists();
+        ClinicalNoteIndex reopened = open(2, 8);
+        assertThat(reopened.wasRebuilt()).isFalse();
+        assertThat(reopened.size()).isEqualTo(3);
+        assertThat(reopened.search("cataract", null, null, null, null, 10)).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(reopened.search("timolol", null, null, null, null, 10)).containsExactly(2L);
+    }
+    
+    @Test
+    void segmentsBeyondTheLimitAreMergedWithoutDeletedDocuments() throws Exception {
+        ClinicalNoteIndex index = open(1, 2);
+        for (long id = 1; id <= 5; id++) {
+            index.index(record(id, "retinal detachment", "laser", null));
+        }
+        index.index(record(2L, "retinal tear", "laser", null));
+        index.remove(4L);
+        
+        assertThat(index.segmentCount()).isLessThanOrEqualTo(2);
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search("detachment", null, null, null, null, 10)).containsExactlyInAnyOrder(1L, 3L, 5L);
+        assertThat(index.search("tear", null, null, null, null, 10)).containsExactly(2L);
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".idx")).count()).isLessThanOrEqualTo(2);
+        }
+    }
+    
+    @Test
+    void deletionsSurviveARestart() {
+        stored(1L, "keratitis", "antibiotic", null);
+        stored(2L, "keratitis", "antiviral", null);
+        ClinicalNoteIndex index = open(1000, 8);
+        
+        rows.remove(1L);
+        index.remove(1L);
+        index.close();
+        
+        ClinicalNoteIndex reopened = open(1000, 8);
+        assertThat(reopened.wasRebuilt()).isFalse();
+        assertThat(reopened.search("keratitis", null, null, null, null, 10)).containsExactly(2L);
+    }
+    
+    @Test
+    void restartOnlyReadsRecordsChangedSinceTheLastFlush() {
+        stored(1L, "myopia", "glasses", null);
+        stored(2L, "hyperopia", "glasses", null);
+        open(1000, 8).close();
+        
+        stored(3L, "myopia", "contact lenses", null);
+        changedAt.put(3L, LocalDateTime.now());
+        ClinicalNoteIndex reopened = open(1000, 8);
+        
+        assertThat(reopened.wasRebuilt()).isFalse();
+        assertThat(reopened.getCaughtUp()).isEqualTo(1);
+        assertThat(reopened.search("myopia", null, null, null, null, 10)).containsExactlyInAnyOrder(1L, 3L);
+    }
+    
+    @Test
+    void phrasesMatchAdjacentTermsWithinOneField() {
+        ClinicalNoteIndex index = open(1000, 8);
+        index.index(record(1L, "diabetic macular edema", null, null));
+        index.index(record(2L, "macular hole with edema", null, null));
+        // The phrase only lines up across the boundary between diagnosis and treatment plan
+        index.index(record(3L, "age related macular", "edema monitoring", null));
+        
+        assertThat(index.search("\"macular edema\"", null, null, null, null, 10)).containsExactly(1L);
+        assertThat(index.search("macular edema", null, null, null, null, 10)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        index.close();
+        assertThat(index.bufferedCount()).isZero();
+        assertThat(index.search("\"macular edema\"", null, null, null, null, 10)).containsExactly(1L);
+    }
+    
+    @Test
+    void searchIsLimitedToTheRequestedScope() {
+        ClinicalNoteIndex index = open(1000, 8);
+        index.index(record(1L, "uveitis", null, null));
+        index.index(record(2L, "uveitis", null, null));
+        
+        assertThat(index.search("uveitis", 12L, null, null, null, 10)).containsExactly(2L);
+        assertThat(index.search("uveitis", null, null, LocalDate.of(2030, 1, 2), null, 10)).containsExactly(2L);
+    }
+    
+    private ClinicalNoteIndex open(int flushDocs, int maxSegments) {
+        ClinicalNoteIndex index = new ClinicalNoteIndex(directory.toString());
+        ReflectionTestUtils.setField(index, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(index, "flushDocs", flushDocs);
+        ReflectionTestUtils.setField(index, "maxSegments", maxSegments);
+        index.warm();
+        return index;
+    }
+    
+    private void stored(Long id, String diagnosis, String treatmentPlan, String notes) {
+        MedicalRecord record = record(id, diagnosis, treatmentPlan, notes);
+        rows.put(id, new Object[] { id, record.getPatient().getId(), record.getDoctor().getId(), record.getVisitDate(),
+                null, diagnosis, treatmentPlan, null, notes });
+        changedAt.put(id, LONG_AGO);
+    }
+    
+    /** Record {@code id} belongs to patient 10 + id and was seen on day id of 2030. */
+    private static MedicalRecord record(Long id, String diagnosis, String treatmentPlan, String notes) {
+        Patient patient = new Patient();
+        patient.setId(10 + id);
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        MedicalRecord record = new MedicalRecord(patient, doctor, LocalDate.of(2030, 1, id.intValue()));
+        record.setId(id);
+        record.setDiagnosis(diagnosis);
+        record.setTreatmentPlan(treatmentPlan);
+        record.setNotes(notes);
+        return record;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.eyecare.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoteAnalyzerTest {
+    
+    @Test
+    void stemsInflectionsToOneTerm() {
+        assertThat(NoteAnalyzer.stem("detached")).isEqualTo("detach");
+        assertThat(NoteAnalyzer.stem("detaching")).isEqualTo("detach");
+        // Derivational suffixes are later Porter steps, so only the plural comes off
+        assertThat(NoteAnalyzer.stem("detachments")).isEqualTo("detachment");
+    }
+    
+    @Test
+    void followsPorterStepOne() {
+        assertThat(NoteAnalyzer.stem("caresses")).isEqualTo("caress");
+        assertThat(NoteAnalyzer.stem("ponies")).isEqualTo("poni");
+        assertThat(NoteAnalyzer.stem("glass")).isEqualTo("glass");
+        assertThat(NoteAnalyzer.stem("agreed")).isEqualTo("agree");
+        assertThat(NoteAnalyzer.stem("feed")).isEqualTo("feed");
+        assertThat(NoteAnalyzer.stem("hopping")).isEqualTo("hop");
+        assertThat(NoteAnalyzer.stem("hoping")).isEqualTo("hope");
+        assertThat(NoteAnalyzer.stem("dilated")).isEqualTo("dilate");
+        assertThat(NoteAnalyzer.stem("falling")).isEqualTo("fall");
+        assertThat(NoteAnalyzer.stem("sing")).isEqualTo("sing");
+        assertThat(NoteAnalyzer.stem("happy")).isEqualTo("happi");
+        assertThat(NoteAnalyzer.stem("sky")).isEqualTo("sky");
+    }
+    
+    @Test
+    void leavesShortWordsAndWordsWithDigitsAlone() {
+        assertThat(NoteAnalyzer.stem("os")).isEqualTo("os");
+        assertThat(NoteAnalyzer.stem("20ed")).isEqualTo("20ed");
+    }
+    
+    @Test
+    void analyzeLowerCasesSplitsAndDropsStopWords() {
+        assertThat(NoteAnalyzer.analyze("Floaters in the LEFT eye, 2 weeks")).containsExactly("floater", "left", "eye", "2", "week");
+        assertThat(NoteAnalyzer.analyze("x".repeat(65) + " retina")).containsExactly("retina");
+        assertThat(NoteAnalyzer.analyze(null)).isEmpty();
+    }
+}
\ No newline at end of file
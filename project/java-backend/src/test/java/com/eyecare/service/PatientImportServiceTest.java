@@ -0,0 +1,59 @@
+package com.eyecare.service;
+
+import com.eyecare.model.User;
+import com.eyecare.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "security.password.bcrypt-strength=4")
+class PatientImportServiceTest {
+    
+    private static final String HEADER = "username,email,password,first_name,last_name,address\r\n";
+    
+    @Autowired
+    private PatientImportService patientImportService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void quotedFieldsMaySpanLines() throws Exception {
+        PatientImportService.Result result = importCsv(HEADER
+                + "multiline1,multiline1@example.com,secret123,Ada,Lovelace,\"12 High St\r\nFlat 3\"\r\n"
+                + "\r\n"
+                + "multiline2,multiline2@example.com,secret123,Alan,\"Turing, \"\"Jr\"\"\",\"Bletchley\nPark\"\n"
+                + "multiline3,multiline3@example.com,secret123,Grace,Hopper,Arlington");
+        
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getImported()).isEqualTo(3);
+        User first = userRepository.findByUsername("multiline1").orElseThrow();
+        assertThat(first.getAddress()).isEqualTo("12 High St\r\nFlat 3");
+        User second = userRepository.findByUsername("multiline2").orElseThrow();
+        assertThat(second.getLastName()).isEqualTo("Turing, \"Jr\"");
+        assertThat(second.getAddress()).isEqualTo("Bletchley\nPark");
+        assertThat(userRepository.findByUsername("multiline3")).isPresent();
+    }
+    
+    @Test
+    void anUnterminatedQuoteFailsItsRowAndStopsTheImport() throws Exception {
+        PatientImportService.Result result = importCsv(HEADER
+                + "unterminated1,unterminated1@example.com,secret123,Ada,Lovelace,Somewhere\n"
+                + "unterminated2,unterminated2@example.com,secret123,Alan,Turing,\"Bletchley\n"
+                + "unterminated3,unterminated3@example.com,secret123,Grace,Hopper,Arlington\n");
+        
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly(Map.of("row", 2, "error", "Unterminated quoted field"));
+        assertThat(userRepository.findByUsername("unterminated3")).isEmpty();
+    }
+    
+    private PatientImportService.Result importCsv(String csv) throws Exception {
+        return patientImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.eyecare.service;
+
+import com.eyecare.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSearchIndexTest {
+    
+    private PatientRepository patientRepository;
+    private final List<Object[]> rows = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        patientRepository = mock(PatientRepository.class);
+        when(patientRepository.findSearchFieldsAfter(eq(0L), any())).thenReturn(rows);
+    }
+    
+    @Test
+    void returnsOnlyPatientsContainingEveryTerm() {
+        row(1L, "John", "Smith", "john.smith@example.com", null);
+        row(2L, "Jane", "Smith", "jane@example.com", null);
+        row(3L, "John", "Doe", "jd@example.com", null);
+        PatientSearchIndex index = warm();
+        
+        assertThat(index.search("smith", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("john smith", 10)).containsExactly(1L);
+        assertThat(index.count("smith")).isEqualTo(2);
+        assertThat(index.search("brown", 10)).isEmpty();
+    }
+    
+    @Test
+    void trigramsSharedOutOfOrderAreNotAMatch() {
+        // Holds both "abc" and "bcd" but never "abcd", in one field or across two
+        row(1L, "Abcx", "Xbcd", "one@example.com", null);
+        row(2L, "Zabcd", "Lee", "two@example.com", null);
+        PatientSearchIndex index = warm();
+        
+        assertThat(index.search("abcd", 10)).containsExactly(2L);
+        assertThat(index.count("abcd")).isEqualTo(1);
+    }
+    
+    @Test
+    void ranksFieldStartsAboveWordStartsAboveInnerMatches() {
+        row(1L, "Joanne", "Park", "jp@example.com", null);
+        row(2L, "Mary", "Lee", "mary.ann@example.com", null);
+        row(3L, "Ann", "Lee", "al@example.com", null);
+        row(4L, "Annika", "Berg", "ab@example.com", null);
+        PatientSearchIndex index = warm();
+        
+        // Equal scores keep the lower id first
+        assertThat(index.search("ann", 10)).containsExactly(3L, 4L, 2L, 1L);
+        assertThat(index.search("ann", 2)).containsExactly(3L, 4L);
+    }
+    
+    @Test
+    void phoneNumbersMatchOnDigitsWhateverTheFormatting() {
+        row(1L, "Ravi", "Patel", "ravi@example.com", "(555) 010-1234");
+        row(2L, "Omar", "Haddad", "omar@example.com", "+1 555 020 9999");
+        PatientSearchIndex index = warm();
+        
+        assertThat(index.search("555-0101", 10)).containsExactly(1L);
+        assertThat(index.search("010.1234", 10)).containsExactly(1L);
+        assertThat(index.search("555", 10)).containsExactlyInAnyOrder(1L, 2L);
+    }
+    
+    @Test
+    void shortQueriesFallBackAndRemovedPatientsDisappear() {
+        row(1L, "Kim", "Nguyen", "kim@example.com", null);
+        PatientSearchIndex index = warm();
+        
+        assertThat(index.search("ki", 10)).isNull();
+        assertThat(index.count("ki")).isEqualTo(-1);
+        
+        index.remove(1L);
+        assertThat(index.size()).isZero();
+        assertThat(index.search("nguyen", 10)).isEmpty();
+    }
+    
+    @Test
+    void seekGallopsToTheFirstIdAtOrAfterTheTarget() {
+        PatientSearchIndex.Postings postings = new PatientSearchIndex.Postings();
+        for (int id = 10; id <= 1000; id += 10) {
+            postings.add(id);
+        }
+        
+        assertThat(postings.seek(0, 5)).isZero();
+        assertThat(postings.seek(0, 10)).isZero();
+        assertThat(postings.seek(0, 11)).isEqualTo(1);
+        assertThat(postings.seek(0, 500)).isEqualTo(49);
+        assertThat(postings.seek(0, 995)).isEqualTo(99);
+        assertThat(postings.seek(0, 1001)).isEqualTo(100);
+        // Never moves backwards from the cursor it is given
+        assertThat(postings.seek(60, 20)).isEqualTo(60);
+        assertThat(postings.seek(100, 20)).isEqualTo(100);
+    }
+    
+    @Test
+    void postingsStaySortedWithoutDuplicates() {
+        PatientSearchIndex.Postings postings = new PatientSearchIndex.Postings();
+        for (int id : new int[] {5, 1, 9, 5, 3, 7}) {
+            postings.add(id);
+        }
+        postings.remove(9);
+        postings.remove(4);
+        
+        assertThat(Arrays.copyOf(postings.ids, postings.size)).containsExactly(1, 3, 5, 7);
+    }
+    
+    private PatientSearchIndex warm() {
+        PatientSearchIndex index = new PatientSearchIndex();
+        ReflectionTestUtils.setField(index, "patientRepository", patientRepository);
+        index.warm();
+        return index;
+    }
+    
+    private void row(Long id, String firstName, String lastName, String email, String phone) {
+        rows.add(new Object[] { id, firstName, lastName, email, phone });
+    }
+}
\ No newline at end of file
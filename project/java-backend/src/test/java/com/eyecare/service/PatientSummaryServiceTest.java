@@ -0,0 +1,100 @@
+package com.eyecare.service;
+
+import com.eyecare.dto.PatientSummary;
+import com.eyecare.dto.PatientView;
+import com.eyecare.repository.AppointmentRepository;
+import com.eyecare.repository.DoctorRepository;
+import com.eyecare.repository.MedicalRecordRepository;
+import com.eyecare.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSummaryServiceTest {
+    
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final MedicalRecordRepository medicalRecordRepository = mock(MedicalRecordRepository.class);
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PatientSummaryService service;
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+    
+    @Test
+    void sectionsThatMissTheirDeadlineAreReportedIncomplete() {
+        service = service(4, 10, 500);
+        when(doctorRepository.findTreatingViews(anyLong())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        
+        PatientSummary summary = service.getSummary(1L);
+        
+        assertThat(summary.patient()).isNotNull();
+        assertThat(summary.doctors()).isEmpty();
+        assertThat(summary.incomplete()).containsExactly("doctors");
+    }
+    
+    @Test
+    void sectionsTurnedAwayByAFullQueueAreReportedIncomplete() {
+        // One worker and one queue slot: the profile runs, appointments wait, the rest are rejected
+        service = service(1, 1, 2000);
+        when(patientRepository.findViewById(1L)).thenAnswer(invocation -> {
+            release.await(200, TimeUnit.MILLISECONDS);
+            return Optional.of(mock(PatientView.class));
+        });
+        
+        PatientSummary summary = service.getSummary(1L);
+        
+        assertThat(summary.patient()).isNotNull();
+        assertThat(summary.incomplete()).containsExactly("recent_medical_records", "doctors");
+    }
+    
+    @Test
+    void queryFailuresAreNotMistakenForTimeouts() {
+        service = service(4, 10, 2000);
+        when(doctorRepository.findTreatingViews(anyLong())).thenThrow(new IllegalStateException("connection lost"));
+        
+        assertThatThrownBy(() -> service.getSummary(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("connection lost");
+    }
+    
+    private PatientSummaryService service(int threads, int queueCapacity, long timeoutMillis) {
+        when(patientRepository.findViewById(1L)).thenReturn(Optional.of(mock(PatientView.class)));
+        when(appointmentRepository.findViewsAfter(any(), any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+        when(medicalRecordRepository.findViewsAfter(any(), any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+        when(doctorRepository.findTreatingViews(anyLong())).thenReturn(List.of());
+        
+        PatientSummaryService summaryService = new PatientSummaryService(threads, queueCapacity);
+        ReflectionTestUtils.setField(summaryService, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(summaryService, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(summaryService, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(summaryService, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(summaryService, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(summaryService, "timeoutMillis", timeoutMillis);
+        ReflectionTestUtils.setField(summaryService, "appointmentLimit", 10);
+        ReflectionTestUtils.setField(summaryService, "medicalRecordLimit", 5);
+        summaryService.init();
+        return summaryService;
+    }
+}
\ No newline at end of file
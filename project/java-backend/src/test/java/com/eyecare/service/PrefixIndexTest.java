@@ -0,0 +1,91 @@
+package com.eyecare.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+    
+    @Test
+    void findsEntriesByFirstLastOrFullNamePrefix() {
+        PrefixIndex index = new PrefixIndex(3, 10);
+        index.put(1L, "Mary", "Jones");
+        index.put(2L, "John", "Smith");
+        index.put(3L, "Joan", "Marsh");
+        
+        assertThat(index.lookup("jo", 10)).containsExactly(3, 2, 1);
+        assertThat(index.lookup("mar", 10)).containsExactly(3, 1);
+        assertThat(index.lookup("  JOHN ", 10)).containsExactly(2);
+        assertThat(index.lookup("x", 10)).isEmpty();
+        assertThat(index.name(2)).isEqualTo("John Smith");
+        assertThat(index.size()).isEqualTo(3);
+    }
+    
+    @Test
+    void keepsOnlyTheBestEntriesPerNodeRankedByNameThenId() {
+        PrefixIndex index = new PrefixIndex(3, 2);
+        index.put(4L, "Sam", "Young");
+        index.put(2L, "Sam", "Young");
+        index.put(1L, "Sara", "Lee");
+        
+        assertThat(index.lookup("sa", 10)).containsExactly(2, 4);
+        assertThat(index.lookup("sa", 1)).containsExactly(2);
+    }
+    
+    @Test
+    void renamedEntriesMoveToTheirNewPrefixes() {
+        PrefixIndex index = new PrefixIndex(3, 10);
+        index.put(1L, "Anna", "Bell");
+        index.put(1L, "Anna", "Carter");
+        
+        assertThat(index.lookup("bel", 10)).isEmpty();
+        assertThat(index.lookup("car", 10)).containsExactly(1);
+        assertThat(index.lookup("ann", 10)).containsExactly(1);
+        assertThat(index.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void removalRefillsTopListsWithTheNextBestEntry() {
+        PrefixIndex index = new PrefixIndex(3, 2);
+        index.put(1L, "Ben", "Adams");
+        index.put(2L, "Ben", "Brown");
+        index.put(3L, "Ben", "Clark");
+        
+        index.remove(1L);
+        
+        assertThat(index.lookup("ben", 10)).containsExactly(2, 3);
+        assertThat(index.lookup("b", 10)).containsExactly(2, 3);
+        assertThat(index.lookup("ada", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void removalUnlinksNodesNoEntryReaches() {
+        PrefixIndex index = new PrefixIndex(3, 10);
+        index.put(1L, "Zoe", "Quinn");
+        index.put(2L, "Zara", "Ali");
+        
+        index.remove(1L);
+        
+        Object root = ReflectionTestUtils.getField(index, "root");
+        assertThat((char[]) ReflectionTestUtils.getField(root, "labels")).containsExactly('a', 'z');
+        index.remove(2L);
+        assertThat((char[]) ReflectionTestUtils.getField(root, "labels")).isEmpty();
+        assertThat(index.lookup("z", 10)).isEmpty();
+    }
+    
+    @Test
+    void prefixesDeeperThanTheTrieFilterTheLastLevel() {
+        PrefixIndex index = new PrefixIndex(2, 10);
+        index.put(1L, "Ann", "Smith");
+        index.put(2L, "Ann", "Smyth");
+        index.put(3L, "Bob", "Smithers");
+        
+        assertThat(index.lookup("sm", 10)).containsExactly(1, 2, 3);
+        assertThat(index.lookup("smith", 10)).containsExactly(1, 3);
+        assertThat(index.lookup("smithe", 10)).containsExactly(3);
+        assertThat(index.lookup("ann smy", 10)).containsExactly(2);
+        assertThat(index.lookup("smith", 1)).containsExactly(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.eyecare.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RecordExporterTest {
+    
+    private RecordExporter exporter;
+    
+    @BeforeEach
+    void setUp() {
+        exporter = new RecordExporter();
+        ReflectionTestUtils.setField(exporter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(exporter, "transactionManager", mock(PlatformTransactionManager.class));
+        exporter.init();
+    }
+    
+    @Test
+    void quotesFieldsThatContainSeparatorsOrQuotes() {
+        assertThat(csv(new Row("plain", 0.1), new Row("dry eye, left", 0.2), new Row("said \"blurry\"", null)))
+                .isEqualTo("note,logmar\nplain,0.1\n\"dry eye, left\",0.2\n\"said \"\"blurry\"\"\",\n");
+    }
+    
+    @Test
+    void neutralisesTextThatASpreadsheetWouldRunAsAFormula() {
+        assertThat(csv(new Row("=HYPERLINK(\"http://x\")", null), new Row("+1", null), new Row("-2 sphere", null),
+                new Row("@SUM(A1)", null), new Row("\tcmd", null)))
+                .isEqualTo("note,logmar\n\"'=HYPERLINK(\"\"http://x\"\")\",\n\"'+1\",\n\"'-2 sphere\",\n\"'@SUM(A1)\",\n\"'\tcmd\",\n");
+    }
+    
+    @Test
+    void leavesNegativeNumbersAlone() {
+        assertThat(csv(new Row("plano", -0.1))).isEqualTo("note,logmar\nplano,-0.1\n");
+    }
+    
+    private String csv(Row... rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(() -> Stream.of(rows), Row.class, ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+    
+    record Row(@JsonProperty("note") String note, @JsonProperty("logmar") Double logmar) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.eyecare.service;
+
+import com.eyecare.model.User;
+import com.eyecare.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registration uniqueness checks per second for names that are not taken, which is what
+ * almost every registration looks up: through the Bloom filters in
+ * {@link UserService#findRegistrationConflict}, and with {@code findIdentityConflicts} run
+ * on every registration as before. Password hashing is left out; it costs the same both ways.
+ */
+@Tag("perf")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.eyecare=INFO"
+})
+class UserServicePerfTest {
+    
+    private static final int EXISTING_USERS = 20_000;
+    private static final int CHECKS = 20_000;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void bloomFilterOutrunsAQueryPerRegistration() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < EXISTING_USERS; i++) {
+            users.add(new User("existing" + i, "existing" + i + "@example.com", "{noop}unused", User.Role.PATIENT, "Existing", "User"));
+            if (users.size() == 1000) {
+                userService.saveUsers(users);
+                users = new ArrayList<>();
+            }
+        }
+        
+        // Warm both paths up before timing them
+        bloomChecks("warm", CHECKS);
+        queryChecks("warm", CHECKS);
+        double bloom = bloomChecks("new", CHECKS);
+        double query = queryChecks("new", CHECKS);
+        System.out.printf("registration checks with %d users: bloom %.0f/s, query %.0f/s%n", EXISTING_USERS, bloom, query);
+        
+        assertThat(bloom).isGreaterThan(query * 2);
+    }
+    
+    private double bloomChecks(String prefix, int count) {
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            assertThat(userService.findRegistrationConflict(prefix + i, prefix + i + "@example.com")).isNull();
+        }
+        return count * 1e9 / (System.nanoTime() - started);
+    }
+    
+    private double queryChecks(String prefix, int count) {
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            assertThat(userRepository.findIdentityConflicts(prefix + i, prefix + i + "@example.com")).isEmpty();
+        }
+        return count * 1e9 / (System.nanoTime() - started);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.eyecare.service;
+
+import com.eyecare.model.MedicalRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VitalsParserTest {
+    
+    @Test
+    void readsSnellenFractionsInFeetAndMetres() {
+        assertThat(VitalsParser.parseLogMar("20/20")).isEqualTo(0.0);
+        assertThat(VitalsParser.parseLogMar("20/40")).isEqualTo(0.3);
+        assertThat(VitalsParser.parseLogMar("6/12")).isEqualTo(0.3);
+        assertThat(VitalsParser.parseLogMar(" 6 / 60 ")).isEqualTo(1.0);
+    }
+    
+    @Test
+    void adjustsForLettersMissedOrGained() {
+        assertThat(VitalsParser.parseLogMar("20/40-2")).isEqualTo(0.34);
+        assertThat(VitalsParser.parseLogMar("20/40 +1")).isEqualTo(0.28);
+    }
+    
+    @Test
+    void readsCountingFingersAndHandMotion() {
+        assertThat(VitalsParser.parseLogMar("CF")).isEqualTo(2.0);
+        assertThat(VitalsParser.parseLogMar("cf at 2 ft")).isEqualTo(2.0);
+        assertThat(VitalsParser.parseLogMar("Counting fingers")).isEqualTo(2.0);
+        assertThat(VitalsParser.parseLogMar("HM")).isEqualTo(2.3);
+        assertThat(VitalsParser.parseLogMar("hand motion")).isEqualTo(2.3);
+    }
+    
+    @Test
+    void rejectsAcuityItCannotRead() {
+        assertThat(VitalsParser.parseLogMar(null)).isNull();
+        assertThat(VitalsParser.parseLogMar("")).isNull();
+        assertThat(VitalsParser.parseLogMar("LP")).isNull();
+        assertThat(VitalsParser.parseLogMar("not tested")).isNull();
+        assertThat(VitalsParser.parseLogMar("0/40")).isNull();
+        assertThat(VitalsParser.parseLogMar("20/0")).isNull();
+    }
+    
+    @Test
+    void readsPressureAsWholeMmHg() {
+        assertThat(VitalsParser.parseIop("18")).isEqualTo((short) 18);
+        assertThat(VitalsParser.parseIop("18 mmHg")).isEqualTo((short) 18);
+        assertThat(VitalsParser.parseIop("IOP 17.6")).isEqualTo((short) 18);
+        assertThat(VitalsParser.parseIop("80")).isEqualTo((short) 80);
+    }
+    
+    @Test
+    void rejectsImplausibleOrMissingPressure() {
+        assertThat(VitalsParser.parseIop("81")).isNull();
+        assertThat(VitalsParser.parseIop("180 mmHg")).isNull();
+        assertThat(VitalsParser.parseIop("soft")).isNull();
+        assertThat(VitalsParser.parseIop("")).isNull();
+        assertThat(VitalsParser.parseIop(null)).isNull();
+    }
+    
+    @Test
+    void applyDerivesEveryColumnAndTheHigherPressure() {
+        MedicalRecord record = new MedicalRecord();
+        record.setEyePressureRight("14 mmHg");
+        record.setEyePressureLeft("21");
+        record.setVisualAcuityRight("6/6");
+        record.setVisualAcuityLeft("garbage");
+        
+        VitalsParser.apply(record);
+        
+        assertThat(record.getIopRight()).isEqualTo((short) 14);
+        assertThat(record.getIopLeft()).isEqualTo((short) 21);
+        assertThat(record.getIopMax()).isEqualTo((short) 21);
+        assertThat(record.getLogmarRight()).isEqualTo(0.0);
+        assertThat(record.getLogmarLeft()).isNull();
+        assertThat(record.getVitalsVersion()).isEqualTo(VitalsParser.VERSION);
+    }
+    
+    @Test
+    void maxIgnoresAMissingSide() {
+        assertThat(VitalsParser.max(null, (short) 12)).isEqualTo((short) 12);
+        assertThat(VitalsParser.max((short) 12, null)).isEqualTo((short) 12);
+        assertThat(VitalsParser.max(null, null)).isNull();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.eyecare.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedMapsTest {
+    
+    @Test
+    void dropsExpiredEntriesBeforeLiveOnes() {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        List<Integer> evicted = new ArrayList<>();
+        
+        BoundedMaps.trim(map, 100, value -> value % 5 == 0, (key, value) -> evicted.add(key));
+        
+        // Twenty expired entries already take the map below 90
+        assertThat(map).hasSize(80);
+        assertThat(map.keySet()).noneMatch(key -> key % 5 == 0);
+        assertThat(evicted).hasSize(20);
+    }
+    
+    @Test
+    void dropsArbitraryEntriesDownToNinetyPercentWhenNoneExpired() {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        List<Integer> evicted = new ArrayList<>();
+        
+        BoundedMaps.trim(map, 1000, value -> false, (key, value) -> evicted.add(key));
+        
+        assertThat(map).hasSize(900);
+        assertThat(evicted).hasSize(100).doesNotContainAnyElementsOf(map.keySet());
+    }
+}
\ No newline at end of file
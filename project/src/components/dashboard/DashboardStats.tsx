@@ -48,7 +48,7 @@ export const DashboardStats: React.FC<DashboardStatsProps> = ({ userRole }) => {
         pendingAppointments: allAppointments.filter((apt: any) => apt.status === 'scheduled').length,
         completedToday: todayAppointments.filter((apt: any) => apt.status === 'completed').length,
         criticalCases: medicalRecords.filter((record: any) => 
-          record.diagnosis && record.diagnosis.toLowerCase().includes('critical')
+          record.diagnosis_preview && record.diagnosis_preview.toLowerCase().includes('critical')
         ).length,
       });
     } catch (error) {